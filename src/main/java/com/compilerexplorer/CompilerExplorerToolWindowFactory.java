@@ -10,6 +10,8 @@ import com.compilerexplorer.datamodel.state.SettingsState;
 import com.compilerexplorer.compiler.SourceRemoteMatchProducer;
 import com.compilerexplorer.compiler.CompilerSettingsProducer;
 import com.compilerexplorer.compiler.SourceRemoteMatchSaver;
+import com.compilerexplorer.compiler.SpeculativePrecompiler;
+import com.compilerexplorer.explorer.HttpClientProvider;
 import com.compilerexplorer.explorer.RemoteCompiler;
 import com.compilerexplorer.compiler.SourcePreprocessor;
 import com.compilerexplorer.explorer.RemoteCompilersProducer;
@@ -40,24 +42,25 @@ public class CompilerExplorerToolWindowFactory implements com.intellij.openapi.w
         TaskRunner taskRunner = new TaskRunner();
 
         ToolWindowGui form = new ToolWindowGui(project, (ToolWindowEx)toolWindow);
-
-        ProjectListener projectListener = new ProjectListener(project, form.asProjectSettingsConsumer());
+        SpeculativePrecompiler precompiler = new SpeculativePrecompiler(project);
 
         SourceRemoteMatchProducer sourceRemoteMatchProducer = new SourceRemoteMatchProducer(project, form.asSourceRemoteMatchedConsumer());
         RemoteCompilersProducer<SourceCompilerSettings> remoteCompilersProducer = new RemoteCompilersProducer<>(project, state, sourceRemoteMatchProducer, form.asErrorConsumer(), taskRunner);
         CompilerSettingsProducer compilerSettingsProducer = new CompilerSettingsProducer(project, remoteCompilersProducer, form.asErrorConsumer(), taskRunner);
 
-        form.setSourceSettingsConsumer(compilerSettingsProducer);
+        ProjectListener projectListener = new ProjectListener(project, remoteCompilersProducer.asProjectSettingsConsumer().andThen(compilerSettingsProducer.asProjectSettingsConsumer()).andThen(form.asProjectSettingsConsumer()).andThen(precompiler.asProjectSettingsConsumer()));
+
+        form.setSourceSettingsConsumer(precompiler.yieldingTo(compilerSettingsProducer));
 
-        RemoteCompiler explorer = new RemoteCompiler(project, form.asCompiledTextConsumer(), form.asErrorConsumer(), taskRunner);
+        RemoteCompiler explorer = new RemoteCompiler(project, form.asCompiledTextConsumer().andThen(precompiler.asCompiledTextConsumer()), form.asErrorConsumer(), taskRunner);
         SourceRemoteMatchSaver<PreprocessedSource> sourceRemoteMatchSaver2 = new SourceRemoteMatchSaver<>(project, explorer, PreprocessedSource::getSourceRemoteMatched);
 
-        form.setPreprocessedSourceConsumer(sourceRemoteMatchSaver2);
+        form.setPreprocessedSourceConsumer(precompiler.yieldingTo(sourceRemoteMatchSaver2));
 
         SourcePreprocessor preprocessor = new SourcePreprocessor(project, sourceRemoteMatchSaver2, form.asErrorConsumer(), taskRunner);
         SourceRemoteMatchSaver<SourceRemoteMatched> sourceRemoteMatchSaver1 = new SourceRemoteMatchSaver<>(project, preprocessor, Function.identity());
 
-        form.setSourceRemoteMatchedConsumer(sourceRemoteMatchSaver1);
+        form.setSourceRemoteMatchedConsumer(precompiler.yieldingTo(sourceRemoteMatchSaver1));
 
         Consumer<RefreshSignal> resetter = refreshSignal -> {
             switch(refreshSignal) {
@@ -65,6 +68,7 @@ public class CompilerExplorerToolWindowFactory implements com.intellij.openapi.w
                     compilerSettingsProducer.asRefreshSignalConsumer().accept(refreshSignal);
                     form.asResetSignalConsumer().accept(refreshSignal);
                     explorer.asResetSignalConsumer().accept(refreshSignal);
+                    preprocessor.asResetSignalConsumer().accept(refreshSignal);
                     // fall through
                 case RECONNECT:
                     remoteCompilersProducer.asRefreshSignalConsumer().accept(refreshSignal);
@@ -75,6 +79,7 @@ public class CompilerExplorerToolWindowFactory implements com.intellij.openapi.w
                 case PREPROCESS:
                     // fall through
                 case COMPILE:
+                    precompiler.asRefreshSignalConsumer().accept(refreshSignal);
                     form.asRecompileSignalConsumer().accept(refreshSignal);
             }
         };
@@ -102,6 +107,7 @@ public class CompilerExplorerToolWindowFactory implements com.intellij.openapi.w
         form.setRefreshSignalConsumer(refreshSignalConsumer);
         CompilerExplorerSettingsProvider.getInstance(project).setRefreshSignalConsumer(refreshSignalConsumer);
 
+        HttpClientProvider.getInstance(project).prewarm(state.getUrl());
         refresher.accept(RefreshSignal.RESET);
 
         new FormAncestorListener(form.getContent(), new Runnable() {
@@ -115,6 +121,7 @@ public class CompilerExplorerToolWindowFactory implements com.intellij.openapi.w
                             lastEnabled = enabled;
                             state.setEnabled(enabled);
                             if (enabled) {
+                                HttpClientProvider.getInstance(project).prewarm(state.getUrl());
                                 refresher.accept(RefreshSignal.RESET);
                             }
                         }
@@ -16,8 +16,42 @@ public class Constants {
     @NotNull
     public static final String DEFAULT_IGNORE_SWITCHES = "";
     @NotNull
+    public static final String DEFAULT_REPLICA_URLS = "";
+    @NotNull
     public static final Color DEFAULT_HIGHLIGHT_COLOR = JBColor.CYAN;
     public static final long DEFAULT_DELAY_MILLIS = 1000;
+    public static final int DEFAULT_HTTP_MAX_CONNECTIONS = 8;
+    public static final int DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE = 4;
+    public static final int HTTP_PREWARM_CONNECTIONS = 2;
+    public static final int DEFAULT_COMPARE_PARALLELISM = 4;
+    public static final int DEFAULT_SPECULATIVE_CONCURRENCY = 2;
+    public static final int DEFAULT_SPECULATIVE_BUDGET = 8;
+    public static final int SPECULATIVE_NEIGHBOUR_DISTANCE = 2;
+    public static final long ENDPOINT_HEALTH_CHECK_INTERVAL_MILLIS = 30000;
+    public static final int ENDPOINT_HEALTH_CHECK_TIMEOUT_MILLIS = 5000;
+    public static final double ENDPOINT_LATENCY_SMOOTHING = 0.3;
+    public static final long HTTP_IDLE_CONNECTION_TIMEOUT_MILLIS = 60000;
+    public static final int HTTP_VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+    public static final long COMPILE_ABANDON_GRACE_MILLIS = 500;
+    public static final long COMPILER_TIMEOUT_MILLIS = 10000;
+    public static final long COMPILER_MIN_TIMEOUT_MILLIS = 5000;
+    public static final long COMPILER_MAX_TIMEOUT_MILLIS = 120000;
+    public static final double COMPILER_TIMEOUT_FACTOR = 4.0;
+    public static final double COMPILER_RUN_SMOOTHING = 0.3;
+    public static final int COMPILER_STDOUT_MAX_CHARS = 64 * 1024 * 1024;
+    public static final int COMPILER_STDERR_MAX_CHARS = 1024 * 1024;
+    public static final int COMPILER_PROBE_CONCURRENCY = 4;
+    public static final long PREPROCESS_CACHE_MAX_CHARS = 64 * 1024 * 1024;
+    public static final int INCREMENTAL_PREPROCESS_MAX_SOURCES = 8;
+    public static final int DEFAULT_LOCAL_PREPROCESS_CONCURRENCY = 4;
+    public static final int DEFAULT_REMOTE_PREPROCESS_CONCURRENCY = 2;
+    public static final int COMPRESSION_THRESHOLD_CHARS = 16 * 1024;
+    public static final long COMPILE_CACHE_MEMORY_MAX_BYTES = 64L * 1024 * 1024;
+    public static final long COMPILE_CACHE_DISK_MAX_BYTES = 512L * 1024 * 1024;
+    @NotNull
+    public static final String COMPILE_CACHE_DIRECTORY = "compilerexplorer/compile-cache";
+    @NotNull
+    public static final String CATALOG_CACHE_DIRECTORY = "compilerexplorer/catalog-cache";
     @NotNull
     public static final String NOTIFICATION_GROUP_NAME = PROJECT_TITLE;
     @NotNull
@@ -0,0 +1,39 @@
+package com.compilerexplorer.common;
+
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class FutureWaiter {
+    private static final long POLL_MILLIS = 100;
+
+    public static <T> T waitFor(@NotNull Future<T> future, @NotNull ProgressIndicator indicator) throws Exception {
+        try {
+            while (true) {
+                indicator.checkCanceled();
+                try {
+                    return future.get(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException timeoutException) {
+                    // empty
+                }
+            }
+        } catch (ProcessCanceledException canceledException) {
+            future.cancel(true);
+            throw canceledException;
+        } catch (CancellationException cancellationException) {
+            throw new ProcessCanceledException();
+        } catch (ExecutionException executionException) {
+            Throwable cause = executionException.getCause();
+            if (cause instanceof CancellationException) {
+                throw new ProcessCanceledException();
+            }
+            throw (cause instanceof Exception) ? (Exception) cause : executionException;
+        }
+    }
+}
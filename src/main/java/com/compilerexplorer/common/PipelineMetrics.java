@@ -0,0 +1,219 @@
+package com.compilerexplorer.common;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class PipelineMetrics {
+    public enum Stage {
+        DEBOUNCE("Debounce wait"),
+        VERSION_PROBE("Compiler version probe"),
+        CATALOG("Compiler catalog"),
+        MATCH("Compiler matching"),
+        PROCESS_SPAWN("Process spawn"),
+        PREPROCESS("Preprocess"),
+        MINIMIZE("Minimize"),
+        SERIALIZE("Request serialization"),
+        NETWORK("Network"),
+        PARSE("Response parse"),
+        MODEL_BUILD("Model build"),
+        RENDER("EDT render");
+
+        @NotNull
+        private final String title;
+
+        Stage(@NotNull String title_) {
+            title = title_;
+        }
+
+        @NotNull
+        public String getTitle() {
+            return title;
+        }
+    }
+
+    public static class Snapshot {
+        @NotNull
+        public final Stage stage;
+        public final long count;
+        public final double totalMillis;
+        public final double minMillis;
+        public final double maxMillis;
+        public final double p50Millis;
+        public final double p95Millis;
+        @NotNull
+        public final long[] histogram;
+
+        Snapshot(@NotNull Stage stage_, long count_, double totalMillis_, double minMillis_, double maxMillis_, double p50Millis_, double p95Millis_, @NotNull long[] histogram_) {
+            stage = stage_;
+            count = count_;
+            totalMillis = totalMillis_;
+            minMillis = minMillis_;
+            maxMillis = maxMillis_;
+            p50Millis = p50Millis_;
+            p95Millis = p95Millis_;
+            histogram = histogram_;
+        }
+
+        public double getMeanMillis() {
+            return count != 0 ? totalMillis / count : 0;
+        }
+    }
+
+    private static class StageMetrics {
+        long count;
+        long totalNanos;
+        long minNanos = Long.MAX_VALUE;
+        long maxNanos;
+        @NotNull
+        final long[] histogram = new long[HISTOGRAM_BUCKETS];
+    }
+
+    private static final int HISTOGRAM_BUCKETS = 17;
+
+    @NotNull
+    private final Map<Stage, StageMetrics> metrics = new EnumMap<>(Stage.class);
+    private long payloadCount;
+    private long originalPayloadChars;
+    private long minimizedPayloadChars;
+
+    public static PipelineMetrics getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, PipelineMetrics.class);
+    }
+
+    public PipelineMetrics() {
+        reset();
+    }
+
+    public long start() {
+        return System.nanoTime();
+    }
+
+    public void stop(@NotNull Stage stage, long startNanos) {
+        record(stage, System.nanoTime() - startNanos);
+    }
+
+    public synchronized void record(@NotNull Stage stage, long nanos) {
+        StageMetrics stageMetrics = metrics.get(stage);
+        stageMetrics.count++;
+        stageMetrics.totalNanos += nanos;
+        stageMetrics.minNanos = Math.min(stageMetrics.minNanos, nanos);
+        stageMetrics.maxNanos = Math.max(stageMetrics.maxNanos, nanos);
+        stageMetrics.histogram[getBucket(nanos)]++;
+    }
+
+    public synchronized void recordPayload(long originalChars, long minimizedChars) {
+        payloadCount++;
+        originalPayloadChars += originalChars;
+        minimizedPayloadChars += minimizedChars;
+    }
+
+    public synchronized void reset() {
+        for (Stage stage : Stage.values()) {
+            metrics.put(stage, new StageMetrics());
+        }
+        payloadCount = 0;
+        originalPayloadChars = 0;
+        minimizedPayloadChars = 0;
+    }
+
+    @NotNull
+    public synchronized String getPayloadSummary() {
+        if (payloadCount == 0) {
+            return "Payload: no sources minimized yet";
+        }
+        double saved = originalPayloadChars != 0 ? 100.0 * (originalPayloadChars - minimizedPayloadChars) / originalPayloadChars : 0;
+        return "Payload: " + payloadCount + " sources, " + (originalPayloadChars / 1024) + " K chars before minimizing, "
+                + (minimizedPayloadChars / 1024) + " K chars after (" + String.format(Locale.ROOT, "%.1f", saved) + "% saved)";
+    }
+
+    @NotNull
+    public synchronized List<Snapshot> getSnapshots() {
+        List<Snapshot> snapshots = new ArrayList<>();
+        for (Stage stage : Stage.values()) {
+            StageMetrics stageMetrics = metrics.get(stage);
+            snapshots.add(new Snapshot(stage,
+                    stageMetrics.count,
+                    toMillis(stageMetrics.totalNanos),
+                    stageMetrics.count != 0 ? toMillis(stageMetrics.minNanos) : 0,
+                    toMillis(stageMetrics.maxNanos),
+                    getPercentileMillis(stageMetrics, 0.5),
+                    getPercentileMillis(stageMetrics, 0.95),
+                    stageMetrics.histogram.clone()));
+        }
+        return snapshots;
+    }
+
+    @NotNull
+    public String toCsv() {
+        StringBuilder builder = new StringBuilder("stage,count,total_ms,mean_ms,min_ms,p50_ms,p95_ms,max_ms");
+        for (int bucket = 0; bucket < HISTOGRAM_BUCKETS; ++bucket) {
+            builder.append(",").append(getBucketTitle(bucket));
+        }
+        builder.append("\n");
+        for (Snapshot snapshot : getSnapshots()) {
+            builder.append(snapshot.stage.name().toLowerCase())
+                    .append(",").append(snapshot.count)
+                    .append(",").append(format(snapshot.totalMillis))
+                    .append(",").append(format(snapshot.getMeanMillis()))
+                    .append(",").append(format(snapshot.minMillis))
+                    .append(",").append(format(snapshot.p50Millis))
+                    .append(",").append(format(snapshot.p95Millis))
+                    .append(",").append(format(snapshot.maxMillis));
+            for (long bucketCount : snapshot.histogram) {
+                builder.append(",").append(bucketCount);
+            }
+            builder.append("\n");
+        }
+        return builder.toString();
+    }
+
+    @NotNull
+    public static String format(double millis) {
+        return String.format(Locale.ROOT, "%.2f", millis);
+    }
+
+    @NotNull
+    private static String getBucketTitle(int bucket) {
+        if (bucket == 0) {
+            return "lt_1ms";
+        }
+        if (bucket == HISTOGRAM_BUCKETS - 1) {
+            return "ge_" + (1L << (bucket - 1)) + "ms";
+        }
+        return "lt_" + (1L << bucket) + "ms";
+    }
+
+    private static int getBucket(long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = millis <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(millis);
+        return Math.min(bucket, HISTOGRAM_BUCKETS - 1);
+    }
+
+    private static double getPercentileMillis(@NotNull StageMetrics stageMetrics, double percentile) {
+        if (stageMetrics.count == 0) {
+            return 0;
+        }
+        long rank = (long)Math.ceil(stageMetrics.count * percentile);
+        long seen = 0;
+        for (int bucket = 0; bucket < HISTOGRAM_BUCKETS; ++bucket) {
+            seen += stageMetrics.histogram[bucket];
+            if (seen >= rank) {
+                double upperMillis = bucket == HISTOGRAM_BUCKETS - 1 ? toMillis(stageMetrics.maxNanos) : (1L << bucket);
+                return Math.min(upperMillis, toMillis(stageMetrics.maxNanos));
+            }
+        }
+        return toMillis(stageMetrics.maxNanos);
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -1,25 +1,35 @@
 package com.compilerexplorer.compiler;
 
 import com.compilerexplorer.common.*;
+import com.compilerexplorer.datamodel.ProjectSettings;
 import com.compilerexplorer.datamodel.SourceCompilerSettings;
 import com.compilerexplorer.datamodel.SourceSettings;
 import com.compilerexplorer.datamodel.state.LocalCompilerPath;
 import com.compilerexplorer.datamodel.state.LocalCompilerSettings;
 import com.compilerexplorer.datamodel.state.SettingsState;
+import com.compilerexplorer.compiler.common.CompilerFingerprint;
 import com.compilerexplorer.compiler.common.CompilerRunner;
+import com.compilerexplorer.compiler.common.CompilerTimeouts;
+import com.google.common.annotations.VisibleForTesting;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
-import com.jetbrains.cidr.lang.workspace.OCResolveConfiguration;
-
 public class CompilerSettingsProducer implements Consumer<SourceSettings> {
     @NotNull
     private final Project project;
@@ -29,6 +39,12 @@ public class CompilerSettingsProducer implements Consumer<SourceSettings> {
     private final Consumer<Error> errorConsumer;
     @NotNull
     private final TaskRunner taskRunner;
+    @NotNull
+    private final TaskRunner eagerTaskRunner;
+    @NotNull
+    private final ExecutorService probeExecutor;
+    @NotNull
+    private final Map<String, CompletableFuture<LocalCompilerSettings>> probes;
 
     public CompilerSettingsProducer(@NotNull Project project_,
                                     @NotNull Consumer<SourceCompilerSettings> sourceCompilerSettingsConsumer_,
@@ -38,6 +54,9 @@ public class CompilerSettingsProducer implements Consumer<SourceSettings> {
         sourceCompilerSettingsConsumer = sourceCompilerSettingsConsumer_;
         errorConsumer = errorConsumer_;
         taskRunner = taskRunner_;
+        eagerTaskRunner = new TaskRunner();
+        probeExecutor = AppExecutorUtil.createBoundedApplicationPoolExecutor(Constants.PROJECT_TITLE + " compiler probe", Constants.COMPILER_PROBE_CONCURRENCY);
+        probes = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -48,12 +67,10 @@ public class CompilerSettingsProducer implements Consumer<SourceSettings> {
             return;
         }
 
-        {
-            LocalCompilerSettings existingSettings = state.getLocalCompilerSettings().get(new LocalCompilerPath(sourceSettings.getCompiler().getAbsolutePath()));
-            if (existingSettings != null) {
-                sourceCompilerSettingsConsumer.accept(new SourceCompilerSettings(sourceSettings, existingSettings));
-                return;
-            }
+        LocalCompilerSettings existingSettings = state.getLocalCompilerSettings().get(new LocalCompilerPath(sourceSettings.getCompiler().getAbsolutePath()));
+        if (existingSettings != null && (existingSettings.getFingerprint().isEmpty() || CompilerFingerprint.isUnchanged(sourceSettings.getCompiler(), existingSettings.getFingerprint()))) {
+            sourceCompilerSettingsConsumer.accept(new SourceCompilerSettings(sourceSettings, existingSettings));
+            return;
         }
 
         if (!isSupportedCompilerType(sourceSettings.getCompilerKind())) {
@@ -61,46 +78,165 @@ public class CompilerSettingsProducer implements Consumer<SourceSettings> {
             return;
         }
 
-        File compiler = sourceSettings.getCompiler();
-        File compilerWorkingDir = compiler.getParentFile();
-        OCResolveConfiguration configuration = sourceSettings.getConfiguration();
+        LocalCompilerPath compilerPath = new LocalCompilerPath(sourceSettings.getCompiler().getAbsolutePath());
+        CompletableFuture<LocalCompilerSettings> eagerProbe = probes.get(sourceSettings.getCompiler().getAbsolutePath());
 
         taskRunner.runTask(new Task.Backgroundable(project, "Determining compiler version for " + sourceSettings.getSourceName()) {
             @Override
             public void run(@NotNull ProgressIndicator indicator) {
-                String[] versionCommandLine = getVersionCommandLine(sourceSettings);
                 try {
-                    CompilerRunner versionRunner = new CompilerRunner(configuration, versionCommandLine, compilerWorkingDir, "");
-                    String versionText = versionRunner.getStderr();
-                    if (versionRunner.getExitCode() == 0 && !versionText.isEmpty()) {
-                        String compilerVersion = parseCompilerVersion(sourceSettings.getCompilerKind(), versionText);
-                        String compilerTarget = parseCompilerTarget(versionText);
-                        if (!compilerVersion.isEmpty() && !compilerTarget.isEmpty()) {
-                            LocalCompilerSettings newSettings = new LocalCompilerSettings(sourceSettings.getCompilerKind(), compilerVersion, compilerTarget);
-                            ApplicationManager.getApplication().invokeLater(() -> {
-                                state.getLocalCompilerSettings().put(new LocalCompilerPath(sourceSettings.getCompiler().getAbsolutePath()), newSettings);
-                                sourceCompilerSettingsConsumer.accept(new SourceCompilerSettings(sourceSettings, newSettings));
-                            });
-                        } else {
-                            errorLater("Cannot parse compiler version:\n" + versionText);
-                        }
-                    } else {
-                        errorLater("Cannot run compiler:\n" + String.join(" ", versionCommandLine) + "\nWorking directory:\n" + compilerWorkingDir.getAbsolutePath() + "\nExit code " + versionRunner.getExitCode() + "\nOutput:\n" + versionRunner.getStdout() + "Errors:\n" + versionText);
-                    }
+                    LocalCompilerSettings newSettings = eagerProbe != null
+                            ? FutureWaiter.waitFor(eagerProbe.thenApply(settings -> settings), indicator)
+                            : identify(sourceSettings, existingSettings);
+                    ApplicationManager.getApplication().invokeLater(() -> {
+                        state.getLocalCompilerSettings().put(compilerPath, newSettings);
+                        sourceCompilerSettingsConsumer.accept(new SourceCompilerSettings(sourceSettings, newSettings));
+                    });
                 } catch (ProcessCanceledException canceledException) {
-                    //errorLater("Cannot determine compiler version:\n" + String.join(" ", versionCommandLine) + "\nCanceled");
+                    //errorLater("Cannot determine compiler version:\n" + String.join(" ", getVersionCommandLine(sourceSettings)) + "\nCanceled");
                 } catch (Exception exception) {
-                    errorLater("Cannot determine compiler version:\n" + String.join(" ", versionCommandLine) + "\nException: " + exception.getMessage());
+                    errorLater(exception.getMessage());
                 }
             }
         });
     }
 
+    @NotNull
+    public Consumer<ProjectSettings> asProjectSettingsConsumer() {
+        return projectSettings -> {
+            eagerTaskRunner.reset();
+            SettingsState state = CompilerExplorerSettingsProvider.getInstance(project).getState();
+            if (!state.getEnabled()) {
+                return;
+            }
+
+            Map<String, SourceSettings> unprobed = new LinkedHashMap<>();
+            for (SourceSettings sourceSettings : projectSettings.getSettings()) {
+                String path = sourceSettings.getCompiler().getAbsolutePath();
+                if (unprobed.containsKey(path) || probes.containsKey(path) || !isSupportedCompilerType(sourceSettings.getCompilerKind())) {
+                    continue;
+                }
+                LocalCompilerSettings existingSettings = state.getLocalCompilerSettings().get(new LocalCompilerPath(path));
+                if (existingSettings == null || (!existingSettings.getFingerprint().isEmpty() && !CompilerFingerprint.isUnchanged(sourceSettings.getCompiler(), existingSettings.getFingerprint()))) {
+                    unprobed.put(path, sourceSettings);
+                }
+            }
+            if (unprobed.isEmpty()) {
+                return;
+            }
+
+            Map<String, CompletableFuture<LocalCompilerSettings>> started = new LinkedHashMap<>();
+            unprobed.forEach((path, sourceSettings) -> {
+                LocalCompilerSettings existingSettings = state.getLocalCompilerSettings().get(new LocalCompilerPath(path));
+                CompletableFuture<LocalCompilerSettings> probe = CompletableFuture.supplyAsync(() -> identify(sourceSettings, existingSettings), probeExecutor);
+                probes.put(path, probe);
+                started.put(path, probe);
+                probe.whenComplete((newSettings, exception) -> ApplicationManager.getApplication().invokeLater(() -> {
+                    if (newSettings != null) {
+                        state.getLocalCompilerSettings().put(new LocalCompilerPath(path), newSettings);
+                    }
+                    probes.remove(path, probe);
+                }));
+            });
+
+            eagerTaskRunner.runTask(new Task.Backgroundable(project, Constants.PROJECT_TITLE + ": probing " + started.size() + " compilers") {
+                @Override
+                public void run(@NotNull ProgressIndicator indicator) {
+                    indicator.setIndeterminate(false);
+                    int done = 0;
+                    for (CompletableFuture<LocalCompilerSettings> probe : started.values()) {
+                        try {
+                            FutureWaiter.waitFor(probe.thenApply(settings -> settings), indicator);
+                        } catch (ProcessCanceledException canceledException) {
+                            return;
+                        } catch (Exception exception) {
+                            // empty
+                        }
+                        indicator.setFraction((double)++done / started.size());
+                    }
+                }
+            });
+        };
+    }
+
+    @NotNull
+    private LocalCompilerSettings identify(@NotNull SourceSettings sourceSettings, @Nullable LocalCompilerSettings existingSettings) {
+        String fingerprint = CompilerRunner.getHostMachine(sourceSettings.getConfiguration()).isRemote() ? "" : CompilerFingerprint.compute(sourceSettings.getCompiler());
+        if (existingSettings != null && CompilerFingerprint.hasSameContent(existingSettings.getFingerprint(), fingerprint)) {
+            return new LocalCompilerSettings(existingSettings.getName(), existingSettings.getVersion(), existingSettings.getTarget(), fingerprint);
+        }
+        long probeStartNanos = PipelineMetrics.getInstance(project).start();
+        try {
+            LocalCompilerSettings probedSettings = probeDriver(sourceSettings, fingerprint);
+            return probedSettings != null ? probedSettings : probeVersion(sourceSettings, fingerprint);
+        } finally {
+            PipelineMetrics.getInstance(project).stop(PipelineMetrics.Stage.VERSION_PROBE, probeStartNanos);
+        }
+    }
+
+    @Nullable
+    private static LocalCompilerSettings probeDriver(@NotNull SourceSettings sourceSettings, @NotNull String fingerprint) {
+        File compiler = sourceSettings.getCompiler();
+        boolean isGcc = sourceSettings.getCompilerKind().equals("GCC");
+        CompilerRunner versionRunner;
+        CompilerRunner machineRunner;
+        try {
+            versionRunner = new CompilerRunner(sourceSettings.getConfiguration(), isGcc ? getFullVersionCommandLine(sourceSettings) : getMacrosCommandLine(sourceSettings), compiler.getParentFile(), "", CompilerTimeouts.Kind.PROBE);
+            if (versionRunner.getExitCode() != 0) {
+                return null;
+            }
+            machineRunner = new CompilerRunner(sourceSettings.getConfiguration(), getMachineCommandLine(sourceSettings), compiler.getParentFile(), "", CompilerTimeouts.Kind.PROBE);
+        } catch (ProcessCanceledException canceledException) {
+            throw canceledException;
+        } catch (Exception exception) {
+            return null;
+        }
+        if (machineRunner.getExitCode() != 0) {
+            return null;
+        }
+        String compilerVersion = isGcc ? parseFullVersion(versionRunner.getStdout()) : parseMacrosVersion(versionRunner.getStdout());
+        String compilerTarget = parseMachineTarget(machineRunner.getStdout());
+        if (compilerVersion.isEmpty() || compilerTarget.isEmpty()) {
+            return null;
+        }
+        return new LocalCompilerSettings(sourceSettings.getCompilerKind(), compilerVersion, compilerTarget, fingerprint);
+    }
+
+    @NotNull
+    private static LocalCompilerSettings probeVersion(@NotNull SourceSettings sourceSettings, @NotNull String fingerprint) {
+        String[] versionCommandLine = getVersionCommandLine(sourceSettings);
+        File compilerWorkingDir = sourceSettings.getCompiler().getParentFile();
+        CompilerRunner versionRunner;
+        try {
+            versionRunner = new CompilerRunner(sourceSettings.getConfiguration(), versionCommandLine, compilerWorkingDir, "", CompilerTimeouts.Kind.PROBE);
+        } catch (ProcessCanceledException canceledException) {
+            throw canceledException;
+        } catch (Exception exception) {
+            throw new RuntimeException("Cannot determine compiler version:\n" + String.join(" ", versionCommandLine) + "\nException: " + exception.getMessage());
+        }
+        String versionText = versionRunner.getStderr();
+        if (versionRunner.getExitCode() != 0 || versionText.isEmpty()) {
+            throw new RuntimeException("Cannot run compiler:\n" + String.join(" ", versionCommandLine) + "\nWorking directory:\n" + compilerWorkingDir.getAbsolutePath() + "\nExit code " + versionRunner.getExitCode() + "\nOutput:\n" + versionRunner.getStdout() + "Errors:\n" + versionText);
+        }
+        String compilerVersion = parseCompilerVersion(sourceSettings.getCompilerKind(), versionText);
+        String compilerTarget = parseCompilerTarget(versionText);
+        if (compilerVersion.isEmpty() || compilerTarget.isEmpty()) {
+            throw new RuntimeException("Cannot parse compiler version:\n" + versionText);
+        }
+        return new LocalCompilerSettings(sourceSettings.getCompilerKind(), compilerVersion, compilerTarget, fingerprint);
+    }
+
     @NotNull
     public Consumer<RefreshSignal> asRefreshSignalConsumer() {
         return refreshSignal -> {
             SettingsState state = CompilerExplorerSettingsProvider.getInstance(project).getState();
-            state.setLocalCompilerSettings(SettingsState.EMPTY.getLocalCompilerSettings());
+            Map<LocalCompilerPath, LocalCompilerSettings> fingerprintedSettings = new HashMap<>();
+            state.getLocalCompilerSettings().forEach((path, settings) -> {
+                if (!settings.getFingerprint().isEmpty()) {
+                    fingerprintedSettings.put(path, settings);
+                }
+            });
+            state.setLocalCompilerSettings(fingerprintedSettings);
         };
     }
 
@@ -112,6 +248,34 @@ public class CompilerSettingsProducer implements Consumer<SourceSettings> {
         ).toArray(String[]::new);
     }
 
+    @NotNull
+    private static String[] getFullVersionCommandLine(@NotNull SourceSettings sourceSettings) {
+        return Stream.of(
+                sourceSettings.getCompiler().getAbsolutePath(),
+                "-dumpfullversion"
+        ).toArray(String[]::new);
+    }
+
+    @NotNull
+    private static String[] getMacrosCommandLine(@NotNull SourceSettings sourceSettings) {
+        return Stream.of(
+                sourceSettings.getCompiler().getAbsolutePath(),
+                "-dM",
+                "-E",
+                "-x",
+                "c",
+                "-"
+        ).toArray(String[]::new);
+    }
+
+    @NotNull
+    private static String[] getMachineCommandLine(@NotNull SourceSettings sourceSettings) {
+        return Stream.of(
+                sourceSettings.getCompiler().getAbsolutePath(),
+                "-dumpmachine"
+        ).toArray(String[]::new);
+    }
+
     private static boolean isSupportedCompilerType(@NotNull String compilerKind) {
         return compilerKind.equals("GCC") || compilerKind.equals("Clang");
     }
@@ -121,11 +285,58 @@ public class CompilerSettingsProducer implements Consumer<SourceSettings> {
         return versionText.replace('\n', ' ').replaceAll(".*" + compilerKind.toLowerCase() + " version ([^ ]*).*", "$1");
     }
 
+    @VisibleForTesting
     @NotNull
-    private static String parseCompilerTarget(@NotNull String versionText) {
+    static String parseCompilerTarget(@NotNull String versionText) {
         return versionText.replace('\n', ' ').replaceAll(".*Target: ([^-]*).*", "$1");
     }
 
+    @VisibleForTesting
+    @NotNull
+    static String parseMachineTarget(@NotNull String machineText) {
+        return machineText.trim().replaceAll("^([^-]*).*", "$1");
+    }
+
+    @VisibleForTesting
+    @NotNull
+    static String parseFullVersion(@NotNull String fullVersionText) {
+        String version = fullVersionText.trim();
+        return version.matches("[0-9]+(\\.[0-9]+)*") ? version : "";
+    }
+
+    @NotNull
+    private static String parseMacrosVersion(@NotNull String macrosText) {
+        Map<String, String> macros = parseMacros(macrosText);
+        return macros.containsKey("__clang__")
+                ? joinVersion(macros, "__clang_major__", "__clang_minor__", "__clang_patchlevel__")
+                : joinVersion(macros, "__GNUC__", "__GNUC_MINOR__", "__GNUC_PATCHLEVEL__");
+    }
+
+    @NotNull
+    private static Map<String, String> parseMacros(@NotNull String macrosText) {
+        Map<String, String> macros = new HashMap<>();
+        for (String line : macrosText.split("\n")) {
+            if (!line.startsWith("#define ")) {
+                continue;
+            }
+            int nameEnd = line.indexOf(' ', "#define ".length());
+            if (nameEnd < 0) {
+                macros.put(line.substring("#define ".length()).trim(), "");
+            } else {
+                macros.put(line.substring("#define ".length(), nameEnd), line.substring(nameEnd + 1).trim());
+            }
+        }
+        return macros;
+    }
+
+    @NotNull
+    private static String joinVersion(@NotNull Map<String, String> macros, @NotNull String major, @NotNull String minor, @NotNull String patch) {
+        if (!macros.containsKey(major) || !macros.containsKey(minor) || !macros.containsKey(patch)) {
+            return "";
+        }
+        return macros.get(major) + "." + macros.get(minor) + "." + macros.get(patch);
+    }
+
     private void errorLater(@NotNull String text) {
         ApplicationManager.getApplication().invokeLater(() -> errorConsumer.accept(new Error(text)));
     }
@@ -0,0 +1,80 @@
+package com.compilerexplorer.compiler;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+class CompilerVersion {
+    private static final int COMPONENTS = 3;
+    private static final long COMPONENT_DISTANCE_LIMIT = 999;
+
+    @NotNull
+    private final int[] components;
+    @NotNull
+    private final String suffix;
+
+    private CompilerVersion(@NotNull int[] components_, @NotNull String suffix_) {
+        components = components_;
+        suffix = suffix_;
+    }
+
+    @Nullable
+    static CompilerVersion parse(@NotNull String token) {
+        int[] components = new int[COMPONENTS];
+        int count = 0;
+        int position = 0;
+        while (count < COMPONENTS && position < token.length() && isDigit(token.charAt(position))) {
+            long value = 0;
+            while (position < token.length() && isDigit(token.charAt(position))) {
+                value = Math.min(Integer.MAX_VALUE, value * 10 + (token.charAt(position) - '0'));
+                ++position;
+            }
+            components[count++] = (int)value;
+            if (count < COMPONENTS && position + 1 < token.length() && token.charAt(position) == '.' && isDigit(token.charAt(position + 1))) {
+                ++position;
+            } else {
+                break;
+            }
+        }
+        return count != 0 ? new CompilerVersion(components, token.substring(position)) : null;
+    }
+
+    @Nullable
+    static CompilerVersion find(@NotNull String text) {
+        for (String token : text.split(" ")) {
+            CompilerVersion version = parse(token);
+            if (version != null) {
+                return version;
+            }
+        }
+        return null;
+    }
+
+    int getMajor() {
+        return components[0];
+    }
+
+    int getMinor() {
+        return components[1];
+    }
+
+    int getPatch() {
+        return components[2];
+    }
+
+    @NotNull
+    String getSuffix() {
+        return suffix;
+    }
+
+    long distanceTo(@NotNull CompilerVersion other) {
+        long distance = 0;
+        for (int i = 0; i < COMPONENTS; ++i) {
+            distance = distance * (COMPONENT_DISTANCE_LIMIT + 1) + Math.min(COMPONENT_DISTANCE_LIMIT, Math.abs((long)components[i] - other.components[i]));
+        }
+        return distance * 2 + (suffix.equals(other.suffix) ? 0 : 1);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,244 @@
+package com.compilerexplorer.compiler;
+
+import com.compilerexplorer.common.Constants;
+import com.compilerexplorer.compiler.common.LineMarker;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+public class IncrementalPreprocessor {
+    private static class Base {
+        @NotNull
+        final String[] commandLine;
+        @NotNull
+        final List<String> sourceLines;
+        @NotNull
+        final boolean[] sourceLineInComment;
+        @NotNull
+        final List<String> outputLines;
+        @NotNull
+        final int[] sourceLineToOutputLine;
+        @NotNull
+        final Set<String> macroNames;
+        @NotNull
+        final PreprocessCache.Closure closure;
+
+        Base(@NotNull String[] commandLine_, @NotNull List<String> sourceLines_, @NotNull List<String> outputLines_, @NotNull String sourcePath, @NotNull Set<String> macroNames_, @NotNull PreprocessCache.Closure closure_) {
+            commandLine = commandLine_;
+            sourceLines = sourceLines_;
+            sourceLineInComment = findLinesStartingInComment(sourceLines);
+            outputLines = outputLines_;
+            sourceLineToOutputLine = mapSourceLines(outputLines, sourcePath, sourceLines.size());
+            macroNames = macroNames_;
+            closure = closure_;
+        }
+    }
+
+    @NotNull
+    private final Map<String, Base> bases = new LinkedHashMap<String, Base>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Base> eldest) {
+            return size() > Constants.INCREMENTAL_PREPROCESS_MAX_SOURCES;
+        }
+    };
+
+    public synchronized void remember(@NotNull String[] commandLine, @NotNull String sourcePath, @NotNull String sourceText, @NotNull String preprocessedText, @NotNull Set<String> macroNames, @NotNull PreprocessCache.Closure closure) {
+        bases.put(sourcePath, new Base(commandLine, splitLines(sourceText), splitLines(preprocessedText), sourcePath, macroNames, closure));
+    }
+
+    public synchronized void forget(@NotNull String sourcePath) {
+        bases.remove(sourcePath);
+    }
+
+    public synchronized void clear() {
+        bases.clear();
+    }
+
+    @Nullable
+    public synchronized String trySplice(@NotNull String[] commandLine, @NotNull String sourcePath, @NotNull String sourceText) {
+        Base base = bases.get(sourcePath);
+        if (base == null || !Arrays.equals(base.commandLine, commandLine)) {
+            return null;
+        }
+        if (!PreprocessCache.getInstance().isValid(base.closure)) {
+            bases.remove(sourcePath);
+            return null;
+        }
+
+        List<String> oldLines = base.sourceLines;
+        List<String> newLines = splitLines(sourceText);
+        int prefix = 0;
+        int maxCommon = Math.min(oldLines.size(), newLines.size());
+        while (prefix < maxCommon && oldLines.get(prefix).equals(newLines.get(prefix))) {
+            ++prefix;
+        }
+        int suffix = 0;
+        while (suffix < maxCommon - prefix && oldLines.get(oldLines.size() - 1 - suffix).equals(newLines.get(newLines.size() - 1 - suffix))) {
+            ++suffix;
+        }
+        int oldEnd = oldLines.size() - suffix;
+        int newEnd = newLines.size() - suffix;
+        if (prefix == oldEnd && prefix == newEnd) {
+            return String.join("\n", base.outputLines);
+        }
+        if (prefix < 2) {
+            return null;
+        }
+
+        for (int i = prefix; i < oldEnd; ++i) {
+            if (!isSpliceable(oldLines.get(i), base.macroNames)) {
+                return null;
+            }
+        }
+        for (int i = prefix; i < newEnd; ++i) {
+            if (!isSpliceable(newLines.get(i), base.macroNames)) {
+                return null;
+            }
+        }
+
+        boolean[] newLineInComment = findLinesStartingInComment(newLines);
+        if (base.sourceLineInComment[prefix] || newLineInComment[prefix] || base.sourceLineInComment[oldEnd] || newLineInComment[newEnd]) {
+            return null;
+        }
+
+        int outputBegin;
+        if (oldEnd > prefix) {
+            outputBegin = base.sourceLineToOutputLine[prefix];
+            for (int i = prefix; i < oldEnd; ++i) {
+                int outputLine = base.sourceLineToOutputLine[i];
+                if (outputLine < 0 || outputLine != outputBegin + (i - prefix) || !base.outputLines.get(outputLine).equals(oldLines.get(i))) {
+                    return null;
+                }
+            }
+        } else {
+            int previousOutputLine = base.sourceLineToOutputLine[prefix - 1];
+            if (previousOutputLine < 0 || !base.outputLines.get(previousOutputLine).equals(oldLines.get(prefix - 1))) {
+                return null;
+            }
+            if (prefix < oldLines.size() && base.sourceLineToOutputLine[prefix] != previousOutputLine + 1) {
+                return null;
+            }
+            outputBegin = previousOutputLine + 1;
+        }
+        int outputEnd = outputBegin + (oldEnd - prefix);
+        int lineDelta = (newEnd - prefix) - (oldEnd - prefix);
+
+        List<String> outputLines = new ArrayList<>(base.outputLines.size() + Math.max(0, lineDelta));
+        outputLines.addAll(base.outputLines.subList(0, outputBegin));
+        outputLines.addAll(newLines.subList(prefix, newEnd));
+        for (String line : base.outputLines.subList(outputEnd, base.outputLines.size())) {
+            outputLines.add(lineDelta != 0 ? shiftMainFileMarker(line, sourcePath, lineDelta) : line);
+        }
+
+        String preprocessedText = String.join("\n", outputLines);
+        bases.put(sourcePath, new Base(commandLine, newLines, outputLines, sourcePath, base.macroNames, base.closure));
+        return preprocessedText;
+    }
+
+    private static boolean isSpliceable(@NotNull String line, @NotNull Set<String> macroNames) {
+        String trimmed = line.trim();
+        if (trimmed.startsWith("#") || trimmed.startsWith("%:") || line.endsWith("\\") || line.contains("/*") || line.contains("*/") || line.contains("//") || line.contains("R\"")) {
+            return false;
+        }
+        int i = 0;
+        int length = line.length();
+        while (i < length) {
+            char c = line.charAt(i);
+            if (Character.isJavaIdentifierStart(c)) {
+                int identifierBegin = i;
+                while (i < length && Character.isJavaIdentifierPart(line.charAt(i))) {
+                    ++i;
+                }
+                String identifier = line.substring(identifierBegin, i);
+                if (identifier.startsWith("__") || identifier.equals("_Pragma") || macroNames.contains(identifier)) {
+                    return false;
+                }
+            } else if (Character.isDigit(c)) {
+                while (i < length && Character.isJavaIdentifierPart(line.charAt(i))) {
+                    ++i;
+                }
+            } else {
+                ++i;
+            }
+        }
+        return true;
+    }
+
+    @NotNull
+    private static boolean[] findLinesStartingInComment(@NotNull List<String> lines) {
+        boolean[] inComment = new boolean[lines.size() + 1];
+        boolean blockComment = false;
+        for (int lineIndex = 0; lineIndex < lines.size(); ++lineIndex) {
+            inComment[lineIndex] = blockComment;
+            String line = lines.get(lineIndex);
+            char quote = 0;
+            for (int i = 0; i < line.length(); ++i) {
+                char c = line.charAt(i);
+                char next = i + 1 < line.length() ? line.charAt(i + 1) : 0;
+                if (blockComment) {
+                    if (c == '*' && next == '/') {
+                        blockComment = false;
+                        ++i;
+                    }
+                } else if (quote != 0) {
+                    if (c == '\\') {
+                        ++i;
+                    } else if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '/' && next == '*') {
+                    blockComment = true;
+                    ++i;
+                } else if (c == '/' && next == '/') {
+                    break;
+                } else if (c == '"' || c == '\'') {
+                    quote = c;
+                }
+            }
+        }
+        inComment[lines.size()] = blockComment;
+        return inComment;
+    }
+
+    @NotNull
+    private static int[] mapSourceLines(@NotNull List<String> outputLines, @NotNull String sourcePath, int sourceLineCount) {
+        int[] sourceLineToOutputLine = new int[sourceLineCount + 1];
+        Arrays.fill(sourceLineToOutputLine, -1);
+        boolean inSource = false;
+        int line = 0;
+        for (int outputLine = 0; outputLine < outputLines.size(); ++outputLine) {
+            String text = outputLines.get(outputLine);
+            LineMarker marker = text.startsWith("#") ? LineMarker.parse(text, 0, text.length()) : null;
+            if (marker != null) {
+                if (marker.getFile() != null) {
+                    inSource = marker.getFile().equals(sourcePath);
+                }
+                line = marker.getLine();
+                continue;
+            }
+            if (inSource && line >= 0 && line <= sourceLineCount && sourceLineToOutputLine[line] < 0) {
+                sourceLineToOutputLine[line] = outputLine;
+            }
+            ++line;
+        }
+        return sourceLineToOutputLine;
+    }
+
+    @NotNull
+    private static String shiftMainFileMarker(@NotNull String line, @NotNull String sourcePath, int lineDelta) {
+        if (!line.startsWith("#")) {
+            return line;
+        }
+        LineMarker marker = LineMarker.parse(line, 0, line.length());
+        if (marker == null || marker.getFile() == null || !marker.getFile().equals(sourcePath)) {
+            return line;
+        }
+        return new LineMarker(marker.getLine() + lineDelta, marker.getFile(), marker.getFlags()).format();
+    }
+
+    @NotNull
+    private static List<String> splitLines(@NotNull String text) {
+        return Arrays.asList(text.split("\n", -1));
+    }
+}
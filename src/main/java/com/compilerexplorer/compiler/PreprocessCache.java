@@ -0,0 +1,304 @@
+package com.compilerexplorer.compiler;
+
+import com.compilerexplorer.common.Constants;
+import com.compilerexplorer.compiler.common.LineMarker;
+import com.intellij.openapi.components.ServiceManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class PreprocessCache {
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+    private static final long MISSING_FILE_SIZE = -1;
+
+    private static class FileFingerprint {
+        @NotNull
+        final String path;
+        final long size;
+        final long modified;
+        @NotNull
+        final String hash;
+
+        FileFingerprint(@NotNull String path_, long size_, long modified_, @NotNull String hash_) {
+            path = path_;
+            size = size_;
+            modified = modified_;
+            hash = hash_;
+        }
+    }
+
+    public static class Closure {
+        @NotNull
+        private final List<FileFingerprint> files;
+
+        private Closure(@NotNull List<FileFingerprint> files_) {
+            files = files_;
+        }
+    }
+
+    private static class Entry {
+        @NotNull
+        final String preprocessedText;
+        @NotNull
+        final Set<String> macroNames;
+        @NotNull
+        final Closure closure;
+
+        Entry(@NotNull String preprocessedText_, @NotNull Set<String> macroNames_, @NotNull Closure closure_) {
+            preprocessedText = preprocessedText_;
+            macroNames = macroNames_;
+            closure = closure_;
+        }
+    }
+
+    @NotNull
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalChars;
+    @NotNull
+    private final Map<String, FileFingerprint> fingerprints = new ConcurrentHashMap<>();
+    @NotNull
+    private final AtomicLong hits = new AtomicLong();
+    @NotNull
+    private final AtomicLong misses = new AtomicLong();
+
+    public static PreprocessCache getInstance() {
+        return ServiceManager.getService(PreprocessCache.class);
+    }
+
+    @NotNull
+    public static String getKey(@NotNull String[] commandLine, @NotNull File workingDir, @NotNull String sourceText) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String argument : commandLine) {
+                update(digest, argument);
+            }
+            update(digest, workingDir.getAbsolutePath());
+            update(digest, sourceText);
+            return toHex(digest.digest());
+        } catch (Exception exception) {
+            throw new RuntimeException("Cannot hash preprocessor input: " + exception.getMessage());
+        }
+    }
+
+    @Nullable
+    public String get(@NotNull String key, @NotNull Set<String> macroNames) {
+        return get(key, macroNames, null);
+    }
+
+    @Nullable
+    public String get(@NotNull String key, @NotNull Set<String> macroNames, @Nullable File includeDir) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (!isValid(entry.closure)) {
+            remove(key, entry);
+            misses.incrementAndGet();
+            return null;
+        }
+        if (includeDir != null && isShadowed(entry.closure, includeDir)) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        macroNames.addAll(entry.macroNames);
+        return entry.preprocessedText;
+    }
+
+    public void put(@NotNull String key, @NotNull String preprocessedText, @NotNull Set<String> macroNames, @NotNull Closure closure) {
+        if (preprocessedText.length() > Constants.PREPROCESS_CACHE_MAX_CHARS) {
+            return;
+        }
+        if (!isVerifiable(closure)) {
+            return;
+        }
+        Entry entry = new Entry(preprocessedText, new HashSet<>(macroNames), closure);
+        synchronized (this) {
+            Entry oldEntry = entries.put(key, entry);
+            if (oldEntry != null) {
+                totalChars -= oldEntry.preprocessedText.length();
+            }
+            totalChars += preprocessedText.length();
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            while (totalChars > Constants.PREPROCESS_CACHE_MAX_CHARS && iterator.hasNext()) {
+                totalChars -= iterator.next().getValue().preprocessedText.length();
+                iterator.remove();
+            }
+        }
+    }
+
+    @NotNull
+    public Closure getClosure(@NotNull String compilerPath, @NotNull File workingDir, @NotNull String sourcePath, @NotNull String preprocessedText) {
+        Set<String> paths = new LinkedHashSet<>();
+        for (String path : findIncludedFiles(preprocessedText)) {
+            File file = new File(path);
+            paths.add(file.isAbsolute() ? path : new File(workingDir, path).getPath());
+        }
+        paths.remove(sourcePath);
+        paths.add(compilerPath);
+        List<FileFingerprint> files = new ArrayList<>();
+        for (String path : paths) {
+            files.add(fingerprint(path));
+        }
+        return new Closure(files);
+    }
+
+    public boolean isVerifiable(@NotNull Closure closure) {
+        return closure.files.stream().allMatch(fingerprint -> fingerprint.size != MISSING_FILE_SIZE);
+    }
+
+    public boolean isShadowed(@NotNull Closure closure, @NotNull File includeDir) {
+        Path directory = includeDir.toPath().toAbsolutePath().normalize();
+        for (FileFingerprint fingerprint : closure.files) {
+            Path path = Paths.get(fingerprint.path).toAbsolutePath().normalize();
+            if (path.startsWith(directory)) {
+                return true;
+            }
+            for (int i = path.getNameCount() - 1; i >= 0; --i) {
+                if (Files.exists(directory.resolve(path.subpath(i, path.getNameCount())))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public boolean isValid(@NotNull Closure closure) {
+        for (FileFingerprint fingerprint : closure.files) {
+            if (!isValid(fingerprint)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void clear() {
+        synchronized (this) {
+            entries.clear();
+            totalChars = 0;
+        }
+        fingerprints.clear();
+        hits.set(0);
+        misses.set(0);
+    }
+
+    @NotNull
+    public String getStatistics() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        int entryCount;
+        long chars;
+        synchronized (this) {
+            entryCount = entries.size();
+            chars = totalChars;
+        }
+        return "Preprocessor cache hits: " + hitCount + " of " + total
+                + "\nPreprocessor cache entries: " + entryCount + " (" + (chars / 1024) + " K chars)"
+                + "\nFingerprinted files: " + fingerprints.size();
+    }
+
+    @NotNull
+    static Set<String> findIncludedFiles(@NotNull String preprocessedText) {
+        Set<String> files = new LinkedHashSet<>();
+        int lineBegin = 0;
+        int length = preprocessedText.length();
+        while (lineBegin < length) {
+            int lineEnd = preprocessedText.indexOf('\n', lineBegin);
+            if (lineEnd < 0) {
+                lineEnd = length;
+            }
+            if (preprocessedText.charAt(lineBegin) == '#') {
+                LineMarker marker = LineMarker.parse(preprocessedText, lineBegin, lineEnd);
+                if (marker != null && marker.getFile() != null && !marker.isPseudoFile()) {
+                    files.add(marker.getFile());
+                }
+            }
+            lineBegin = lineEnd + 1;
+        }
+        return files;
+    }
+
+    private synchronized void remove(@NotNull String key, @NotNull Entry entry) {
+        if (entries.remove(key, entry)) {
+            totalChars -= entry.preprocessedText.length();
+        }
+    }
+
+    private boolean isValid(@NotNull FileFingerprint fingerprint) {
+        File file = new File(fingerprint.path);
+        if (!file.isFile()) {
+            return fingerprint.size == MISSING_FILE_SIZE;
+        }
+        long size = file.length();
+        if (size != fingerprint.size) {
+            return false;
+        }
+        if (file.lastModified() == fingerprint.modified) {
+            return true;
+        }
+        return fingerprint(fingerprint.path).hash.equals(fingerprint.hash);
+    }
+
+    @NotNull
+    private FileFingerprint fingerprint(@NotNull String path) {
+        File file = new File(path);
+        if (!file.isFile()) {
+            return new FileFingerprint(path, MISSING_FILE_SIZE, 0, "");
+        }
+        long size = file.length();
+        long modified = file.lastModified();
+        FileFingerprint known = fingerprints.get(path);
+        if (known != null && known.size == size && known.modified == modified) {
+            return known;
+        }
+        FileFingerprint fingerprint = new FileFingerprint(path, size, modified, hashFile(file));
+        fingerprints.put(path, fingerprint);
+        return fingerprint;
+    }
+
+    @NotNull
+    private static String hashFile(@NotNull File file) {
+        try (InputStream stream = new FileInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[HASH_BUFFER_SIZE];
+            int read;
+            while ((read = stream.read(buffer)) >= 0) {
+                digest.update(buffer, 0, read);
+            }
+            return toHex(digest.digest());
+        } catch (Exception exception) {
+            return "";
+        }
+    }
+
+    private static void update(@NotNull MessageDigest digest, @NotNull String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        digest.update(String.valueOf(bytes.length).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte)0);
+        digest.update(bytes);
+    }
+
+    @NotNull
+    private static String toHex(@NotNull byte[] bytes) {
+        StringBuilder builder = new StringBuilder();
+        for (byte b : bytes) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,136 @@
+package com.compilerexplorer.compiler;
+
+import com.compilerexplorer.common.CompilerExplorerSettingsProvider;
+import com.compilerexplorer.datamodel.state.SettingsState;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+public class PreprocessingExecutor {
+    public enum Priority {
+        SELECTED,
+        BACKGROUND
+    }
+
+    private static class Job<T> implements Comparable<Job<?>> {
+        @NotNull
+        final Priority priority;
+        final long sequence;
+        @NotNull
+        final Callable<T> callable;
+        @NotNull
+        final CompletableFuture<T> future;
+        @NotNull
+        final ProgressIndicator indicator;
+
+        Job(@NotNull Priority priority_, long sequence_, @NotNull Callable<T> callable_) {
+            priority = priority_;
+            sequence = sequence_;
+            callable = callable_;
+            future = new CompletableFuture<>();
+            indicator = new EmptyProgressIndicator();
+        }
+
+        @Override
+        public int compareTo(@NotNull Job<?> other) {
+            int result = priority.compareTo(other.priority);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private static class HostQueue {
+        @NotNull
+        final PriorityQueue<Job<?>> pending = new PriorityQueue<>();
+        int active;
+    }
+
+    @NotNull
+    private final Project project;
+    @NotNull
+    private final HostQueue localQueue = new HostQueue();
+    @NotNull
+    private final HostQueue remoteQueue = new HostQueue();
+    private long sequence;
+
+    public static PreprocessingExecutor getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, PreprocessingExecutor.class);
+    }
+
+    public PreprocessingExecutor(@NotNull Project project_) {
+        project = project_;
+    }
+
+    @NotNull
+    public <T> Future<T> submit(boolean remoteHost, @NotNull Priority priority, @NotNull Callable<T> callable) {
+        HostQueue queue = remoteHost ? remoteQueue : localQueue;
+        Job<T> job;
+        synchronized (this) {
+            job = new Job<>(priority, sequence++, callable);
+            queue.pending.add(job);
+        }
+        job.future.whenComplete((result, throwable) -> {
+            if (job.future.isCancelled()) {
+                job.indicator.cancel();
+                synchronized (this) {
+                    queue.pending.remove(job);
+                }
+            }
+        });
+        dispatch(queue, remoteHost);
+        return job.future;
+    }
+
+    private void dispatch(@NotNull HostQueue queue, boolean remoteHost) {
+        SettingsState state = CompilerExplorerSettingsProvider.getInstance(project).getState();
+        int limit = Math.max(1, remoteHost ? state.getRemotePreprocessConcurrency() : state.getLocalPreprocessConcurrency());
+        while (true) {
+            Job<?> job;
+            synchronized (this) {
+                if (queue.active >= limit || queue.pending.isEmpty()) {
+                    return;
+                }
+                job = queue.pending.poll();
+                queue.active++;
+            }
+            AppExecutorUtil.getAppExecutorService().execute(() -> {
+                try {
+                    run(job);
+                } finally {
+                    synchronized (this) {
+                        queue.active--;
+                    }
+                    dispatch(queue, remoteHost);
+                }
+            });
+        }
+    }
+
+    private static <T> void run(@NotNull Job<T> job) {
+        if (job.future.isDone()) {
+            return;
+        }
+        try {
+            ProgressManager.getInstance().runProcess(() -> {
+                try {
+                    job.future.complete(job.callable.call());
+                } catch (ProcessCanceledException canceledException) {
+                    job.future.cancel(false);
+                } catch (Exception exception) {
+                    job.future.completeExceptionally(exception);
+                }
+            }, job.indicator);
+        } catch (ProcessCanceledException canceledException) {
+            job.future.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.compilerexplorer.compiler;
+
+import com.compilerexplorer.compiler.common.LiteralState;
+import com.jetbrains.cidr.cpp.toolchains.CPPEnvironment;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Set;
+import java.util.function.Consumer;
+
+class PreprocessorOutput implements Consumer<String> {
+    @Nullable
+    private final CPPEnvironment environment;
+    @Nullable
+    private final Set<String> macroNames;
+    @NotNull
+    private final StringBuilder builder = new StringBuilder();
+    @NotNull
+    private final LiteralState literalState = new LiteralState();
+
+    PreprocessorOutput(@Nullable CPPEnvironment environment_, @Nullable Set<String> macroNames_) {
+        environment = environment_;
+        macroNames = macroNames_;
+    }
+
+    @NotNull
+    static String filter(@NotNull String preprocessedText, @Nullable CPPEnvironment environment, @NotNull Set<String> macroNames) {
+        PreprocessorOutput output = new PreprocessorOutput(environment, macroNames);
+        int lineBegin = 0;
+        int length = preprocessedText.length();
+        while (lineBegin < length) {
+            int lineEnd = preprocessedText.indexOf('\n', lineBegin);
+            if (lineEnd < 0) {
+                lineEnd = length;
+            }
+            output.accept(preprocessedText.substring(lineBegin, lineEnd));
+            lineBegin = lineEnd + 1;
+        }
+        if (length > 0 && preprocessedText.charAt(length - 1) != '\n') {
+            output.builder.setLength(output.builder.length() - 1);
+        }
+        return output.getText();
+    }
+
+    @Override
+    public void accept(@NotNull String line) {
+        boolean insideLiteral = literalState.isInside();
+        if (!insideLiteral && macroNames != null && (line.startsWith("#define ") || line.startsWith("#undef "))) {
+            int nameBegin = line.indexOf(' ') + 1;
+            int nameEnd = nameBegin;
+            while (nameEnd < line.length() && Character.isJavaIdentifierPart(line.charAt(nameEnd))) {
+                ++nameEnd;
+            }
+            macroNames.add(line.substring(nameBegin, nameEnd));
+            builder.append('\n');
+            return;
+        }
+        literalState.scan(line, 0, line.length());
+        builder.append(!insideLiteral && environment != null ? RemotePreprocessor.toLocalMarker(environment, line) : line).append('\n');
+    }
+
+    @NotNull
+    String getText() {
+        return builder.toString();
+    }
+}
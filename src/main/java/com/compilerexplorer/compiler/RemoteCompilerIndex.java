@@ -0,0 +1,243 @@
+package com.compilerexplorer.compiler;
+
+import com.compilerexplorer.datamodel.state.CompilerMatch;
+import com.compilerexplorer.datamodel.state.CompilerMatchKind;
+import com.compilerexplorer.datamodel.state.RemoteCompilerInfo;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.*;
+
+class RemoteCompilerIndex {
+    private static final String LINE_TERMINATORS = "\n\r\u0085\u2028\u2029";
+    private static final long MAX_DISTANCE = 1L << 40;
+
+    private static class Entry {
+        @NotNull
+        private final RemoteCompilerInfo info;
+        @NotNull
+        private final String lowerName;
+        @NotNull
+        private final String lowerVersion;
+        @NotNull
+        private final String targetName;
+        @NotNull
+        private final String targetVersion;
+        @Nullable
+        private final CompilerVersion version;
+
+        private Entry(@NotNull RemoteCompilerInfo info_) {
+            info = info_;
+            lowerName = info.getName().toLowerCase();
+            lowerVersion = info.getVersion().toLowerCase();
+            targetName = normalizeTarget(info.getName());
+            targetVersion = normalizeTarget(info.getVersion());
+            CompilerVersion parsedVersion = CompilerVersion.find(info.getVersion());
+            version = parsedVersion != null ? parsedVersion : CompilerVersion.find(info.getName());
+        }
+    }
+
+    private static class LanguageBucket {
+        @NotNull
+        private final List<Entry> entries = new ArrayList<>();
+        @NotNull
+        private final Map<String, Set<Entry>> versionTokens = new HashMap<>();
+        @NotNull
+        private final Map<String, Set<Entry>> nameTokens = new HashMap<>();
+        @NotNull
+        private final Map<String, Set<Entry>> versionMinorPrefixes = new HashMap<>();
+        @NotNull
+        private final Map<String, Set<Entry>> nameMinorPrefixes = new HashMap<>();
+        @NotNull
+        private final Map<String, Set<Entry>> familyTargetBuckets = new HashMap<>();
+        @Nullable
+        private byte[] hash;
+
+        private void add(@NotNull Entry entry) {
+            entries.add(entry);
+            addTokens(entry, entry.info.getVersion(), versionTokens, versionMinorPrefixes);
+            addTokens(entry, entry.info.getName(), nameTokens, nameMinorPrefixes);
+        }
+
+        @NotNull
+        private Set<Entry> getFamilyTargetBucket(@NotNull String localName, @NotNull String localTarget) {
+            return familyTargetBuckets.computeIfAbsent(localName + "\n" + localTarget, key -> {
+                String target = normalizeTarget(localTarget);
+                Set<Entry> bucket = new HashSet<>();
+                for (Entry entry : entries) {
+                    boolean targetMatches = entry.targetVersion.contains(target) || entry.targetName.contains(target);
+                    boolean nameMatches = entry.lowerVersion.contains(localName) || entry.lowerName.contains(localName);
+                    if (targetMatches && nameMatches) {
+                        bucket.add(entry);
+                    }
+                }
+                return bucket;
+            });
+        }
+
+        @NotNull
+        private byte[] getHash() {
+            if (hash == null) {
+                MessageDigest digest = createDigest();
+                for (Entry entry : entries) {
+                    update(digest, entry.info.getId());
+                    update(digest, entry.info.getName());
+                    update(digest, entry.info.getLanguage());
+                    update(digest, entry.info.getVersion());
+                }
+                hash = digest.digest();
+            }
+            return hash;
+        }
+
+        private static void addTokens(@NotNull Entry entry, @NotNull String text, @NotNull Map<String, Set<Entry>> tokens, @NotNull Map<String, Set<Entry>> minorPrefixes) {
+            for (String token : getVersionTokens(text)) {
+                tokens.computeIfAbsent(token, t -> new HashSet<>()).add(entry);
+                String minorPrefix = getMinorPrefix(token);
+                if (minorPrefix != null) {
+                    minorPrefixes.computeIfAbsent(minorPrefix, t -> new HashSet<>()).add(entry);
+                }
+            }
+        }
+    }
+
+    @NotNull
+    private final Map<String, LanguageBucket> languageBuckets = new HashMap<>();
+
+    RemoteCompilerIndex(@NotNull List<RemoteCompilerInfo> remoteCompilers) {
+        for (RemoteCompilerInfo remoteCompiler : remoteCompilers) {
+            languageBuckets.computeIfAbsent(remoteCompiler.getLanguage().toLowerCase(), language -> new LanguageBucket()).add(new Entry(remoteCompiler));
+        }
+    }
+
+    @NotNull
+    synchronized List<CompilerMatch> findMatches(@NotNull String language,
+                                                 @NotNull String localName,
+                                                 @NotNull String localVersion,
+                                                 @NotNull String localVersionFull,
+                                                 @NotNull String localTarget) {
+        LanguageBucket languageBucket = languageBuckets.get(language.toLowerCase());
+        if (languageBucket == null) {
+            return new ArrayList<>();
+        }
+        Set<Entry> familyTargetBucket = languageBucket.getFamilyTargetBucket(localName.toLowerCase(), localTarget);
+        Set<Entry> exact = new HashSet<>();
+        Set<Entry> minor = new HashSet<>();
+        if (!familyTargetBucket.isEmpty()) {
+            exact.addAll(languageBucket.versionTokens.getOrDefault(localVersionFull, Collections.emptySet()));
+            exact.addAll(languageBucket.nameTokens.getOrDefault(localVersion, Collections.emptySet()));
+            minor.addAll(languageBucket.versionMinorPrefixes.getOrDefault(getMinorLookupPrefix(localVersionFull), Collections.emptySet()));
+            minor.addAll(languageBucket.nameMinorPrefixes.getOrDefault(getMinorLookupPrefix(localVersion), Collections.emptySet()));
+        }
+        CompilerVersion parsedLocalVersion = CompilerVersion.parse(localVersionFull);
+        List<CompilerMatch> matches = new ArrayList<>(languageBucket.entries.size());
+        Map<CompilerMatch, Long> scores = new IdentityHashMap<>();
+        for (Entry entry : languageBucket.entries) {
+            CompilerMatchKind kind = CompilerMatchKind.NO_MATCH;
+            boolean inBucket = familyTargetBucket.contains(entry);
+            if (inBucket) {
+                if (exact.contains(entry)) {
+                    kind = CompilerMatchKind.EXACT_MATCH;
+                } else if (minor.contains(entry)) {
+                    kind = CompilerMatchKind.MINOR_MISMATCH;
+                }
+            }
+            CompilerMatch match = new CompilerMatch(entry.info, kind);
+            matches.add(match);
+            scores.put(match, score(kind, inBucket, parsedLocalVersion, entry.version));
+        }
+        matches.sort(Comparator.comparingLong(scores::get));
+        return matches;
+    }
+
+    private static long score(@NotNull CompilerMatchKind kind, boolean inBucket, @Nullable CompilerVersion localVersion, @Nullable CompilerVersion remoteVersion) {
+        long rank = kind == CompilerMatchKind.EXACT_MATCH ? 0 : (kind == CompilerMatchKind.MINOR_MISMATCH ? 1 : (inBucket ? 2 : 3));
+        long distance = localVersion != null && remoteVersion != null ? localVersion.distanceTo(remoteVersion) : MAX_DISTANCE;
+        return rank * (MAX_DISTANCE + 1) + Math.min(distance, MAX_DISTANCE);
+    }
+
+    @NotNull
+    synchronized String getCatalogHash(@NotNull String language,
+                                       @NotNull String localName,
+                                       @NotNull String localVersion,
+                                       @NotNull String localVersionFull,
+                                       @NotNull String localTarget) {
+        LanguageBucket languageBucket = languageBuckets.get(language.toLowerCase());
+        MessageDigest digest = createDigest();
+        digest.update(languageBucket != null ? languageBucket.getHash() : new byte[0]);
+        update(digest, language.toLowerCase());
+        update(digest, localName);
+        update(digest, localVersion);
+        update(digest, localVersionFull);
+        update(digest, localTarget);
+        StringBuilder builder = new StringBuilder();
+        for (byte b : digest.digest()) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+
+    static boolean versionMatches(@NotNull String remoteName, @NotNull String localVersion, boolean tryMinorMismatch) {
+        String minorLookupPrefix = getMinorLookupPrefix(localVersion);
+        for (String token : getVersionTokens(remoteName)) {
+            if (tryMinorMismatch ? minorLookupPrefix.equals(getMinorPrefix(token)) : token.equals(localVersion)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @NotNull
+    private static List<String> getVersionTokens(@NotNull String text) {
+        for (int i = 0; i < text.length(); ++i) {
+            if (LINE_TERMINATORS.indexOf(text.charAt(i)) >= 0) {
+                return Collections.emptyList();
+            }
+        }
+        String[] parts = text.split(" ", -1);
+        return Arrays.asList(parts).subList(Math.min(1, parts.length), parts.length);
+    }
+
+    @Nullable
+    private static String getMinorPrefix(@NotNull String token) {
+        int dot = token.lastIndexOf('.');
+        if (dot < 0 || dot == token.length() - 1) {
+            return null;
+        }
+        for (int i = dot + 1; i < token.length(); ++i) {
+            if (token.charAt(i) < '0' || token.charAt(i) > '9') {
+                return null;
+            }
+        }
+        return token.substring(0, dot + 1);
+    }
+
+    @NotNull
+    private static String getMinorLookupPrefix(@NotNull String version) {
+        int dot = version.lastIndexOf('.');
+        return (dot >= 0 ? version.substring(0, dot) : version) + ".";
+    }
+
+    @NotNull
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (Exception exception) {
+            throw new RuntimeException("Cannot hash compiler catalog: " + exception.getMessage());
+        }
+    }
+
+    private static void update(@NotNull MessageDigest digest, @NotNull String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    @NotNull
+    private static String normalizeTarget(@NotNull String text) {
+        return text.replace('-', '_');
+    }
+}
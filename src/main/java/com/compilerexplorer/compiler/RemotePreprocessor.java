@@ -0,0 +1,120 @@
+package com.compilerexplorer.compiler;
+
+import com.compilerexplorer.common.Constants;
+import com.compilerexplorer.compiler.common.CompilerRunner;
+import com.compilerexplorer.compiler.common.CompilerTimeouts;
+import com.compilerexplorer.compiler.common.LineMarker;
+import com.google.common.annotations.VisibleForTesting;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.jetbrains.cidr.cpp.toolchains.CPPEnvironment;
+import com.jetbrains.cidr.lang.workspace.OCResolveConfiguration;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+class RemotePreprocessor {
+    private static final String SHELL = "/bin/sh";
+
+    private RemotePreprocessor() {
+    }
+
+    @NotNull
+    static String toLocalMarker(@NotNull CPPEnvironment environment, @NotNull String line) {
+        LineMarker marker = line.startsWith("#") ? LineMarker.parse(line, 0, line.length()) : null;
+        if (marker != null && marker.getFile() != null && !marker.isPseudoFile()) {
+            return new LineMarker(marker.getLine(), environment.toLocalPath(marker.getFile()), marker.getFlags()).format();
+        }
+        return line;
+    }
+
+    @NotNull
+    static List<String> runBatch(@NotNull OCResolveConfiguration configuration,
+                                 @NotNull List<String[]> commandLines,
+                                 @NotNull List<File> workingDirs,
+                                 @NotNull List<String> sourceTexts) {
+        String delimiter = "compilerexplorer-" + UUID.randomUUID();
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < commandLines.size(); ++i) {
+            String sourceText = sourceTexts.get(i);
+            script.append("(cd ").append(quote(workingDirs.get(i).getPath())).append(" && exec");
+            for (String argument : commandLines.get(i)) {
+                script.append(' ').append(quote(argument));
+            }
+            script.append(") <<'").append(delimiter).append("'\n");
+            script.append(sourceText);
+            if (!sourceText.endsWith("\n")) {
+                script.append('\n');
+            }
+            script.append(delimiter).append('\n');
+            script.append("printf '\\n%s %d\\n' ").append(quote(delimiter)).append(" $?\n");
+        }
+
+        BatchOutput output = new BatchOutput(delimiter, Constants.COMPILER_STDOUT_MAX_CHARS);
+        try {
+            new CompilerRunner(configuration, new String[]{SHELL, "-s"}, workingDirs.get(0), script, commandLines.get(0)[0], CompilerTimeouts.Kind.BATCH, commandLines.size(), output);
+        } catch (ProcessCanceledException canceledException) {
+            throw canceledException;
+        } catch (Exception exception) {
+            // empty
+        }
+        return output.getOutputs(commandLines.size());
+    }
+
+    @VisibleForTesting
+    static class BatchOutput implements Consumer<String> {
+        @NotNull
+        private final String separator;
+        private final long maxChars;
+        @NotNull
+        private final StringBuilder builder = new StringBuilder();
+        @NotNull
+        private final List<String> outputs = new ArrayList<>();
+        private boolean truncated;
+
+        BatchOutput(@NotNull String delimiter_, long maxChars_) {
+            separator = delimiter_ + " ";
+            maxChars = maxChars_;
+        }
+
+        @Override
+        public synchronized void accept(@NotNull String line) {
+            if (line.startsWith(separator)) {
+                boolean succeeded = line.substring(separator.length()).trim().equals("0");
+                if (builder.length() != 0) {
+                    builder.setLength(builder.length() - 1);
+                }
+                outputs.add(succeeded && !truncated && builder.length() != 0 ? builder.toString() : null);
+                builder.setLength(0);
+                truncated = false;
+                return;
+            }
+            if (truncated) {
+                return;
+            }
+            if (builder.length() + line.length() + 1 > maxChars) {
+                builder.setLength(0);
+                truncated = true;
+                return;
+            }
+            builder.append(line).append('\n');
+        }
+
+        @NotNull
+        synchronized List<String> getOutputs(int count) {
+            List<String> result = new ArrayList<>(outputs.subList(0, Math.min(count, outputs.size())));
+            while (result.size() < count) {
+                result.add(null);
+            }
+            return result;
+        }
+    }
+
+    @NotNull
+    private static String quote(@NotNull String argument) {
+        return "'" + argument.replace("'", "'\\''") + "'";
+    }
+}
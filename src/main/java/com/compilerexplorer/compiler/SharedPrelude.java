@@ -0,0 +1,144 @@
+package com.compilerexplorer.compiler;
+
+import com.compilerexplorer.compiler.common.LineMarker;
+import com.compilerexplorer.compiler.common.LiteralState;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Set;
+
+class SharedPrelude {
+    private static final String PRELUDE_FILE = "<prelude>";
+    private static final String PRELUDE_MACROS_FILE = "<prelude macros>";
+
+    @NotNull
+    private final String sourcePath;
+    @NotNull
+    private final String preludeText;
+    private final int restLine;
+    @NotNull
+    private final String restText;
+
+    private SharedPrelude(@NotNull String sourcePath_, @NotNull String preludeText_, int restLine_, @NotNull String restText_) {
+        sourcePath = sourcePath_;
+        preludeText = preludeText_;
+        restLine = restLine_;
+        restText = restText_;
+    }
+
+    @Nullable
+    static SharedPrelude find(@NotNull String sourcePath, @NotNull String sourceText) {
+        String[] lines = sourceText.split("\n", -1);
+        int includes = 0;
+        int line = 1;
+        while (line < lines.length) {
+            String trimmed = lines[line].trim();
+            if (trimmed.contains("/*") || trimmed.endsWith("\\")) {
+                break;
+            }
+            if (isInclude(trimmed)) {
+                ++includes;
+            } else if (!trimmed.isEmpty() && !trimmed.startsWith("//")) {
+                break;
+            }
+            ++line;
+        }
+        if (includes == 0 || line >= lines.length) {
+            return null;
+        }
+        String preludeText = "# 1 \"" + PRELUDE_FILE + "\"\n" + String.join("\n", Arrays.asList(lines).subList(1, line)) + "\n";
+        String restText = String.join("\n", Arrays.asList(lines).subList(line, lines.length));
+        return new SharedPrelude(sourcePath, preludeText, line, restText);
+    }
+
+    @NotNull
+    String getPreludeText() {
+        return preludeText;
+    }
+
+    @NotNull
+    String getRestText(@NotNull String preludeRawText) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(new LineMarker(1, PRELUDE_MACROS_FILE, "").format()).append('\n');
+        boolean inPrelude = false;
+        LiteralState literalState = new LiteralState();
+        int lineBegin = 0;
+        int length = preludeRawText.length();
+        while (lineBegin < length) {
+            int lineEnd = preludeRawText.indexOf('\n', lineBegin);
+            if (lineEnd < 0) {
+                lineEnd = length;
+            }
+            if (!inPrelude) {
+                LineMarker marker = LineMarker.parse(preludeRawText, lineBegin, lineEnd);
+                inPrelude = marker != null && PRELUDE_FILE.equals(marker.getFile());
+            } else if (!literalState.isInside() && (preludeRawText.startsWith("#define ", lineBegin) || preludeRawText.startsWith("#undef ", lineBegin))) {
+                builder.append(preludeRawText, lineBegin, lineEnd).append('\n');
+            } else {
+                literalState.scan(preludeRawText, lineBegin, lineEnd);
+            }
+            lineBegin = lineEnd + 1;
+        }
+        builder.append(new LineMarker(restLine, sourcePath, "").format()).append('\n');
+        builder.append(restText);
+        return builder.toString();
+    }
+
+    @Nullable
+    String combine(@NotNull String preludeRawText, @NotNull String restRawText) {
+        int restBegin = 0;
+        int length = restRawText.length();
+        while (restBegin < length) {
+            int lineEnd = restRawText.indexOf('\n', restBegin);
+            if (lineEnd < 0) {
+                lineEnd = length;
+            }
+            LineMarker marker = LineMarker.parse(restRawText, restBegin, lineEnd);
+            if (marker != null && sourcePath.equals(marker.getFile())) {
+                break;
+            }
+            restBegin = lineEnd + 1;
+        }
+        if (restBegin >= length) {
+            return null;
+        }
+        String restPart = restRawText.substring(restBegin);
+        Set<String> preludeFiles = PreprocessCache.findIncludedFiles(preludeRawText);
+        preludeFiles.remove(PRELUDE_FILE);
+        if (hasContentFrom(restPart, preludeFiles)) {
+            return null;
+        }
+        return preludeRawText + (preludeRawText.endsWith("\n") ? "" : "\n") + restPart;
+    }
+
+    private static boolean hasContentFrom(@NotNull String preprocessedText, @NotNull Set<String> files) {
+        boolean inFiles = false;
+        int lineBegin = 0;
+        int length = preprocessedText.length();
+        while (lineBegin < length) {
+            int lineEnd = preprocessedText.indexOf('\n', lineBegin);
+            if (lineEnd < 0) {
+                lineEnd = length;
+            }
+            LineMarker marker = LineMarker.parse(preprocessedText, lineBegin, lineEnd);
+            if (marker != null) {
+                if (marker.getFile() != null) {
+                    inFiles = files.contains(marker.getFile());
+                }
+            } else if (inFiles && !preprocessedText.substring(lineBegin, lineEnd).trim().isEmpty()) {
+                return true;
+            }
+            lineBegin = lineEnd + 1;
+        }
+        return false;
+    }
+
+    private static boolean isInclude(@NotNull String trimmed) {
+        if (!trimmed.startsWith("#")) {
+            return false;
+        }
+        String directive = trimmed.substring(1).trim();
+        return directive.startsWith("include") && !directive.startsWith("include_next");
+    }
+}
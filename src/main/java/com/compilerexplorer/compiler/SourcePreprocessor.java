@@ -4,6 +4,8 @@ import com.compilerexplorer.common.*;
 import com.compilerexplorer.datamodel.*;
 import com.compilerexplorer.datamodel.state.SettingsState;
 import com.compilerexplorer.compiler.common.CompilerRunner;
+import com.compilerexplorer.compiler.common.CompilerTimeouts;
+import com.compilerexplorer.compiler.common.PreprocessedTextMinimizer;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
@@ -17,13 +19,20 @@ import org.jetbrains.annotations.Nullable;
 import java.io.File;
 import java.lang.Error;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
+import com.jetbrains.cidr.cpp.toolchains.CPPEnvironment;
 import com.jetbrains.cidr.lang.workspace.OCResolveConfiguration;
 
 public class SourcePreprocessor implements Consumer<SourceRemoteMatched> {
+    private static final String COUNTER_MACRO = "__COUNTER__";
+
     @NotNull
     private final Project project;
     @NotNull
@@ -32,6 +41,8 @@ public class SourcePreprocessor implements Consumer<SourceRemoteMatched> {
     private final Consumer<Error> errorConsumer;
     @NotNull
     private final TaskRunner taskRunner;
+    @NotNull
+    private final IncrementalPreprocessor incrementalPreprocessor = new IncrementalPreprocessor();
     @Nullable
     private SourceRemoteMatched lastPreprocessableSource;
 
@@ -62,9 +73,8 @@ public class SourcePreprocessor implements Consumer<SourceRemoteMatched> {
             return;
         }
 
-        boolean isRemote = CompilerRunner.getHostMachine(configuration).isRemote();
-        String sourceText = "# 1 \"" + sourceSettings.getSourcePath().replaceAll("\\\\", "\\\\\\\\") + "\"\n" + document.getText();
-        if (isRemote || !state.getPreprocessLocally()) {
+        String sourceText = getSourceText(sourceSettings, document);
+        if (!shouldPreprocessLocally(state)) {
             preprocessedSourceConsumer.accept(new PreprocessedSource(preprocessableSource, sourceText));
             return;
         }
@@ -77,13 +87,25 @@ public class SourcePreprocessor implements Consumer<SourceRemoteMatched> {
             public void run(@NotNull ProgressIndicator indicator) {
                 String[] preprocessorCommandLine = getPreprocessorCommandLine(project, sourceSettings, state.getAdditionalSwitches(), state.getIgnoreSwitches());
                 try {
-                    CompilerRunner compilerRunner = new CompilerRunner(configuration, preprocessorCommandLine, compilerWorkingDir, sourceText);
-                    String preprocessedText = compilerRunner.getStdout();
-                    if (compilerRunner.getExitCode() == 0 && !preprocessedText.isEmpty()) {
-                        ApplicationManager.getApplication().invokeLater(() -> preprocessedSourceConsumer.accept(new PreprocessedSource(preprocessableSource, preprocessedText)));
+                    long preprocessStartNanos = PipelineMetrics.getInstance(project).start();
+                    String splicedText = incrementalPreprocessor.trySplice(preprocessorCommandLine, sourceSettings.getSourcePath(), sourceText);
+                    if (splicedText != null) {
+                        PipelineMetrics.getInstance(project).stop(PipelineMetrics.Stage.PREPROCESS, preprocessStartNanos);
+                        String minimizedText = minimize(project, splicedText);
+                        ApplicationManager.getApplication().invokeLater(() -> preprocessedSourceConsumer.accept(new PreprocessedSource(preprocessableSource, minimizedText)));
+                        return;
+                    }
+                    Set<String> macroNames = new HashSet<>();
+                    String preprocessedText = getPreprocessedText(project, configuration, preprocessorCommandLine, compilerWorkingDir, compiler.getAbsolutePath(), sourceSettings.getSourcePath(), sourceText, macroNames, PreprocessingExecutor.Priority.SELECTED, indicator);
+                    PreprocessCache.Closure closure = PreprocessCache.getInstance().getClosure(compiler.getAbsolutePath(), compilerWorkingDir, sourceSettings.getSourcePath(), preprocessedText);
+                    if (PreprocessCache.getInstance().isVerifiable(closure)) {
+                        incrementalPreprocessor.remember(preprocessorCommandLine, sourceSettings.getSourcePath(), sourceText, preprocessedText, macroNames, closure);
                     } else {
-                        errorLater("Cannot run preprocessor:\n" + String.join(" ", preprocessorCommandLine) + "\nWorking directory:\n" + compilerWorkingDir.getAbsolutePath() + "\nExit code " + compilerRunner.getExitCode() + "\nOutput:\n" + preprocessedText + "Errors:\n" + compilerRunner.getStderr());
+                        incrementalPreprocessor.forget(sourceSettings.getSourcePath());
                     }
+                    PipelineMetrics.getInstance(project).stop(PipelineMetrics.Stage.PREPROCESS, preprocessStartNanos);
+                    String minimizedText = minimize(project, preprocessedText);
+                    ApplicationManager.getApplication().invokeLater(() -> preprocessedSourceConsumer.accept(new PreprocessedSource(preprocessableSource, minimizedText)));
                 } catch (ProcessCanceledException canceledException) {
                     //errorLater("Canceled preprocessing " + name + ":\n" + String.join(" ", preprocessorCommandLine));
                 } catch (Exception exception) {
@@ -93,14 +115,161 @@ public class SourcePreprocessor implements Consumer<SourceRemoteMatched> {
         });
     }
 
+    @NotNull
+    static String getSourceText(@NotNull SourceSettings sourceSettings, @NotNull Document document) {
+        return "# 1 \"" + sourceSettings.getSourcePath().replaceAll("\\\\", "\\\\\\\\") + "\"\n" + document.getText();
+    }
+
+    static boolean shouldPreprocessLocally(@NotNull SettingsState state) {
+        return state.getPreprocessLocally();
+    }
+
+    @NotNull
+    static String preprocess(@NotNull Project project, @NotNull SourceSettings sourceSettings, @NotNull SettingsState state, @NotNull String sourceText, @NotNull PreprocessingExecutor.Priority priority, @NotNull ProgressIndicator indicator) throws Exception {
+        if (!shouldPreprocessLocally(state)) {
+            return sourceText;
+        }
+        String[] preprocessorCommandLine = getPreprocessorCommandLine(project, sourceSettings, state.getAdditionalSwitches(), state.getIgnoreSwitches());
+        File compilerWorkingDir = sourceSettings.getCompiler().getParentFile();
+        String preprocessedText = getPreprocessedText(project, sourceSettings.getConfiguration(), preprocessorCommandLine, compilerWorkingDir, sourceSettings.getCompiler().getAbsolutePath(), sourceSettings.getSourcePath(), sourceText, new HashSet<>(), priority, indicator);
+        return PreprocessedTextMinimizer.minimize(preprocessedText);
+    }
+
+    @NotNull
+    private static String getPreprocessedText(@NotNull Project project,
+                                              @NotNull OCResolveConfiguration configuration,
+                                              @NotNull String[] preprocessorCommandLine,
+                                              @NotNull File compilerWorkingDir,
+                                              @NotNull String compilerPath,
+                                              @NotNull String sourcePath,
+                                              @NotNull String sourceText,
+                                              @NotNull Set<String> macroNames,
+                                              @NotNull PreprocessingExecutor.Priority priority,
+                                              @NotNull ProgressIndicator indicator) throws Exception {
+        if (CompilerRunner.getHostMachine(configuration).isRemote()) {
+            return runPreprocessor(project, configuration, preprocessorCommandLine, compilerWorkingDir, sourceText, macroNames, priority, indicator);
+        }
+        PreprocessCache cache = PreprocessCache.getInstance();
+        String cacheKey = PreprocessCache.getKey(preprocessorCommandLine, compilerWorkingDir, sourceText);
+        String preprocessedText = cache.get(cacheKey, macroNames);
+        if (preprocessedText != null) {
+            return preprocessedText;
+        }
+        SharedPrelude prelude = SharedPrelude.find(sourcePath, sourceText);
+        String preludeRawText = null;
+        if (prelude != null) {
+            String sourceIncludeSwitch = getSourceIncludeSwitch(CompilerRunner.getEnvironment(configuration), sourcePath);
+            String[] sharedCommandLine = Arrays.stream(preprocessorCommandLine).filter(argument -> !argument.equals(sourceIncludeSwitch)).toArray(String[]::new);
+            String sharedPreludeKey = PreprocessCache.getKey(sharedCommandLine, compilerWorkingDir, prelude.getPreludeText());
+            String preludeKey = PreprocessCache.getKey(preprocessorCommandLine, compilerWorkingDir, prelude.getPreludeText());
+            File sourceDir = Paths.get(sourcePath).getParent().toFile();
+            preludeRawText = cache.get(sharedPreludeKey, new HashSet<>(), sourceDir);
+            if (preludeRawText == null) {
+                preludeRawText = cache.get(preludeKey, new HashSet<>());
+            }
+            if (preludeRawText == null) {
+                preludeRawText = runPreprocessor(project, configuration, preprocessorCommandLine, compilerWorkingDir, prelude.getPreludeText(), null, priority, indicator);
+                PreprocessCache.Closure preludeClosure = cache.getClosure(compilerPath, compilerWorkingDir, sourcePath, preludeRawText);
+                cache.put(cache.isShadowed(preludeClosure, sourceDir) ? preludeKey : sharedPreludeKey, preludeRawText, new HashSet<>(), preludeClosure);
+            }
+        }
+        if (prelude != null && !preludeRawText.contains(COUNTER_MACRO)) {
+            try {
+                Set<String> combinedMacroNames = new HashSet<>();
+                String restText = runPreprocessor(project, configuration, preprocessorCommandLine, compilerWorkingDir, prelude.getRestText(preludeRawText), combinedMacroNames, priority, indicator);
+                preprocessedText = prelude.combine(PreprocessorOutput.filter(preludeRawText, null, combinedMacroNames), restText);
+                if (preprocessedText != null) {
+                    macroNames.addAll(combinedMacroNames);
+                }
+            } catch (ProcessCanceledException canceledException) {
+                throw canceledException;
+            } catch (Exception exception) {
+                // empty
+            }
+        }
+        if (preprocessedText == null) {
+            preprocessedText = runPreprocessor(project, configuration, preprocessorCommandLine, compilerWorkingDir, sourceText, macroNames, priority, indicator);
+        }
+        cache.put(cacheKey, preprocessedText, macroNames, cache.getClosure(compilerPath, compilerWorkingDir, sourcePath, preprocessedText));
+        return preprocessedText;
+    }
+
+    @NotNull
+    private static String runPreprocessor(@NotNull Project project,
+                                          @NotNull OCResolveConfiguration configuration,
+                                          @NotNull String[] preprocessorCommandLine,
+                                          @NotNull File compilerWorkingDir,
+                                          @NotNull String sourceText,
+                                          @Nullable Set<String> macroNames,
+                                          @NotNull PreprocessingExecutor.Priority priority,
+                                          @NotNull ProgressIndicator indicator) throws Exception {
+        CPPEnvironment environment = CompilerRunner.getEnvironment(configuration);
+        boolean remoteHost = environment.getHostMachine().isRemote();
+        return FutureWaiter.waitFor(PreprocessingExecutor.getInstance(project).submit(remoteHost, priority, () -> {
+            Set<String> runMacroNames = macroNames != null ? new HashSet<>() : null;
+            PreprocessorOutput output = new PreprocessorOutput(remoteHost ? environment : null, runMacroNames);
+            CompilerRunner compilerRunner = new CompilerRunner(configuration, preprocessorCommandLine, compilerWorkingDir, sourceText, CompilerTimeouts.Kind.PREPROCESS, output);
+            String preprocessedText = output.getText();
+            if (compilerRunner.isStdoutTruncated()) {
+                throw new RuntimeException("Preprocessor output exceeds " + Constants.COMPILER_STDOUT_MAX_CHARS + " characters");
+            }
+            if (compilerRunner.getExitCode() != 0 || preprocessedText.isEmpty()) {
+                throw new RuntimeException("Cannot run preprocessor:\n" + String.join(" ", preprocessorCommandLine) + "\nWorking directory:\n" + compilerWorkingDir.getAbsolutePath() + "\nExit code " + compilerRunner.getExitCode() + "\nOutput:\n" + preprocessedText + "Errors:\n" + compilerRunner.getStderr());
+            }
+            if (macroNames != null) {
+                macroNames.addAll(runMacroNames);
+            }
+            return preprocessedText;
+        }), indicator);
+    }
+
+    @NotNull
+    static List<String> preprocessRemoteBatch(@NotNull Project project,
+                                              @NotNull List<SourceSettings> sources,
+                                              @NotNull List<String> sourceTexts,
+                                              @NotNull SettingsState state,
+                                              @NotNull PreprocessingExecutor.Priority priority,
+                                              @NotNull ProgressIndicator indicator) throws Exception {
+        OCResolveConfiguration configuration = sources.get(0).getConfiguration();
+        CPPEnvironment environment = CompilerRunner.getEnvironment(configuration);
+        List<String[]> commandLines = new ArrayList<>();
+        List<File> workingDirs = new ArrayList<>();
+        for (SourceSettings sourceSettings : sources) {
+            commandLines.add(getPreprocessorCommandLine(project, sourceSettings, state.getAdditionalSwitches(), state.getIgnoreSwitches()));
+            workingDirs.add(sourceSettings.getCompiler().getParentFile());
+        }
+        List<String> rawTexts = FutureWaiter.waitFor(PreprocessingExecutor.getInstance(project).submit(true, priority, () -> RemotePreprocessor.runBatch(configuration, commandLines, workingDirs, sourceTexts)), indicator);
+        List<String> preprocessedTexts = new ArrayList<>();
+        for (String rawText : rawTexts) {
+            preprocessedTexts.add(rawText != null ? PreprocessedTextMinimizer.minimize(PreprocessorOutput.filter(rawText, environment, new HashSet<>())) : null);
+        }
+        return preprocessedTexts;
+    }
+
+    @NotNull
+    private static String minimize(@NotNull Project project, @NotNull String preprocessedText) {
+        PipelineMetrics metrics = PipelineMetrics.getInstance(project);
+        long minimizeStartNanos = metrics.start();
+        String minimizedText = PreprocessedTextMinimizer.minimize(preprocessedText);
+        metrics.stop(PipelineMetrics.Stage.MINIMIZE, minimizeStartNanos);
+        metrics.recordPayload(preprocessedText.length(), minimizedText.length());
+        return minimizedText;
+    }
+
+    @NotNull
+    private static String getSourceIncludeSwitch(@NotNull CPPEnvironment environment, @NotNull String sourcePath) {
+        return "-I" + environment.toEnvPath(Paths.get(sourcePath).getParent().toString());
+    }
+
     @NotNull
     private static String[] getPreprocessorCommandLine(@NotNull Project project, @NotNull SourceSettings sourceSettings, @NotNull String additionalSwitches, @NotNull String ignoreSwitches) {
+        CPPEnvironment environment = CompilerRunner.getEnvironment(sourceSettings.getConfiguration());
         return Stream.concat(
                 Stream.concat(
                         Stream.concat(
                                 Stream.of(sourceSettings.getCompiler().getAbsolutePath(),
-                                        "-I" + Paths.get(sourceSettings.getSourcePath()).getParent().toString(),
-                                        "-I" + project.getBasePath()
+                                        getSourceIncludeSwitch(environment, sourceSettings.getSourcePath()),
+                                        "-I" + environment.toEnvPath(String.valueOf(project.getBasePath()))
                                 ),
                                 Stream.concat(
                                         sourceSettings.getSwitches().stream(),
@@ -111,6 +280,7 @@ public class SourcePreprocessor implements Consumer<SourceRemoteMatched> {
                 ).filter(x -> !Arrays.asList(ignoreSwitches.split(" ")).contains(x)),
                 Stream.of(
                         "-E",
+                        "-dD",
                         "-o", "-",
                         sourceSettings.getLanguageSwitch(),
                         "-c", "-"
@@ -122,6 +292,14 @@ public class SourcePreprocessor implements Consumer<SourceRemoteMatched> {
         ApplicationManager.getApplication().invokeLater(() -> errorConsumer.accept(new Error(text)));
     }
 
+    @NotNull
+    public Consumer<RefreshSignal> asResetSignalConsumer() {
+        return refreshSignal -> {
+            incrementalPreprocessor.clear();
+            PreprocessCache.getInstance().clear();
+        };
+    }
+
     public void refresh() {
         if (lastPreprocessableSource != null && CompilerExplorerSettingsProvider.getInstance(project).getState().getEnabled()) {
             accept(lastPreprocessableSource);
@@ -7,16 +7,21 @@ import com.compilerexplorer.datamodel.state.*;
 import com.google.common.annotations.VisibleForTesting;
 import com.intellij.openapi.project.Project;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 public class SourceRemoteMatchProducer implements Consumer<SourceCompilerSettings> {
     @NotNull
     private final Project project;
     @NotNull
     private final Consumer<SourceRemoteMatched> sourceRemoteMatchedConsumer;
+    @Nullable
+    private List<RemoteCompilerInfo> indexedCompilers;
+    @NotNull
+    private RemoteCompilerIndex index = new RemoteCompilerIndex(new ArrayList<>());
 
     public SourceRemoteMatchProducer(@NotNull Project project_, @NotNull Consumer<SourceRemoteMatched> sourceRemoteMatchedConsumer_) {
         project = project_;
@@ -31,79 +36,46 @@ public class SourceRemoteMatchProducer implements Consumer<SourceCompilerSetting
             return;
         }
 
+        String localName = sourceCompilerSettings.getLocalCompilerSettings().getName().toLowerCase();
+        String localVersionFull = sourceCompilerSettings.getLocalCompilerSettings().getVersion();
+        String localVersion = localName.equals("gcc") ? stripLastGCCVersionDigitIfNeeded(localVersionFull) : localVersionFull;
+        String localTarget = sourceCompilerSettings.getLocalCompilerSettings().getTarget();
+        String language = sourceCompilerSettings.getSourceSettings().getLanguage();
+        RemoteCompilerIndex index = getIndex(state.getRemoteCompilers());
+        String catalogHash = index.getCatalogHash(language, localName, localVersion, localVersionFull, localTarget);
+
         {
             CompilerMatches existingMatches = state.getCompilerMatches().get(new LocalCompilerPath(sourceCompilerSettings.getSourceSettings().getCompiler().getAbsolutePath()));
-            if (existingMatches != null) {
+            if (existingMatches != null && existingMatches.getCatalogHash().equals(catalogHash)) {
                 sourceRemoteMatchedConsumer.accept(new SourceRemoteMatched(sourceCompilerSettings, existingMatches));
                 return;
             }
         }
 
-        String localName = sourceCompilerSettings.getLocalCompilerSettings().getName().toLowerCase();
-        String localVersionFull = sourceCompilerSettings.getLocalCompilerSettings().getVersion();
-        String localVersion = localName.equals("gcc") ? stripLastGCCVersionDigitIfNeeded(localVersionFull) : localVersionFull;
-        String localTarget = sourceCompilerSettings.getLocalCompilerSettings().getTarget();
-        String language = sourceCompilerSettings.getSourceSettings().getLanguage();
-        List<CompilerMatch> remoteCompilerMatches = findRemoteCompilerMatches(state.getRemoteCompilers(), localName, localVersion, localVersionFull, localTarget, language);
-        CompilerMatches matches = new CompilerMatches(findBestMatch(remoteCompilerMatches), remoteCompilerMatches);
+        long matchStartNanos = PipelineMetrics.getInstance(project).start();
+        List<CompilerMatch> remoteCompilerMatches = index.findMatches(language, localName, localVersion, localVersionFull, localTarget);
+        CompilerMatches matches = new CompilerMatches(findBestMatch(remoteCompilerMatches), remoteCompilerMatches, catalogHash);
+        PipelineMetrics.getInstance(project).stop(PipelineMetrics.Stage.MATCH, matchStartNanos);
         sourceRemoteMatchedConsumer.accept(new SourceRemoteMatched(sourceCompilerSettings, matches));
     }
 
     @NotNull
-    private static List<CompilerMatch> findRemoteCompilerMatches(@NotNull List<RemoteCompilerInfo> remoteCompilers,
-                                                                 @NotNull String localName,
-                                                                 @NotNull String localVersion,
-                                                                 @NotNull String localVersionFull,
-                                                                 @NotNull String localTarget,
-                                                                 @NotNull String language) {
-        return remoteCompilers.stream()
-                .filter(s -> s.getLanguage().toLowerCase().equals(language.toLowerCase()))
-                .map(s -> findCompilerVersionMatch(s, localName, localVersion, localVersionFull, localTarget))
-                .collect(Collectors.toList());
+    private RemoteCompilerIndex getIndex(@NotNull List<RemoteCompilerInfo> remoteCompilers) {
+        if (remoteCompilers != indexedCompilers) {
+            index = new RemoteCompilerIndex(remoteCompilers);
+            indexedCompilers = remoteCompilers;
+        }
+        return index;
     }
 
     @NotNull
     private static CompilerMatch findBestMatch(@NotNull List<CompilerMatch> matches) {
-        return matches.stream().filter(m -> m.getCompilerMatchKind() == CompilerMatchKind.EXACT_MATCH).findFirst().orElse(
-                matches.stream().filter(m -> m.getCompilerMatchKind() == CompilerMatchKind.MINOR_MISMATCH).findFirst().orElse(
-                        new CompilerMatch()
-                )
-        );
-    }
-
-    @NotNull
-    private static CompilerMatch findCompilerVersionMatch(@NotNull RemoteCompilerInfo remoteCompilerInfo,
-                                                          @NotNull String localName,
-                                                          @NotNull String localVersion,
-                                                          @NotNull String localVersionFull,
-                                                          @NotNull String localTarget) {
-        String remoteVersion = remoteCompilerInfo.getVersion();
-        String remoteName = remoteCompilerInfo.getName();
-        boolean targetMatches =
-                remoteVersion.replaceAll("-", "_").contains(localTarget.replaceAll("-", "_")) ||
-                remoteName.replaceAll("-", "_").contains(localTarget.replaceAll("-", "_"));
-        boolean nameMatches =
-                remoteVersion.toLowerCase().contains(localName.toLowerCase()) ||
-                remoteName.toLowerCase().contains(localName.toLowerCase());
-        if (targetMatches && nameMatches) {
-            if (versionMatches(remoteVersion, localVersionFull, false) || versionMatches(remoteName, localVersion, false)) {
-                return new CompilerMatch(remoteCompilerInfo, CompilerMatchKind.EXACT_MATCH);
-            } else if (versionMatches(remoteVersion, localVersionFull, true) || versionMatches(remoteName, localVersion, true)) {
-                return new CompilerMatch(remoteCompilerInfo, CompilerMatchKind.MINOR_MISMATCH);
-            }
-        }
-        return new CompilerMatch(remoteCompilerInfo, CompilerMatchKind.NO_MATCH);
+        return matches.stream().findFirst().filter(m -> m.getCompilerMatchKind() != CompilerMatchKind.NO_MATCH).orElse(new CompilerMatch());
     }
 
     @VisibleForTesting
     static boolean versionMatches(@NotNull String remoteName, @NotNull String localVersion, boolean tryMinorMismatch) {
-        String localVersionRegex = "^.* " + (tryMinorMismatch ? (turnIntoRegex(stripLastVersionPart(localVersion)) + "\\.[0-9]+") : turnIntoRegex(localVersion)) + "( .*)?$";
-        return remoteName.matches(localVersionRegex);
-    }
-
-    @NotNull
-    private static String turnIntoRegex(@NotNull String version) {
-        return version.replaceAll("\\.", "\\\\.");
+        return RemoteCompilerIndex.versionMatches(remoteName, localVersion, tryMinorMismatch);
     }
 
     @NotNull
@@ -116,8 +88,4 @@ public class SourceRemoteMatchProducer implements Consumer<SourceCompilerSetting
         }
     }
 
-    @NotNull
-    private static String stripLastVersionPart(@NotNull String version) {
-        return version.replaceAll("^(.*)\\.[^.]*$", "$1");
-    }
 }
@@ -42,6 +42,9 @@ public class SourceRemoteMatchSaver<T> implements Consumer<T> {
     @NotNull
     public Consumer<RefreshSignal> asRefreshSignalConsumer() {
         return refreshSignal -> {
+            if (refreshSignal != RefreshSignal.RESET) {
+                return;
+            }
             SettingsState state = CompilerExplorerSettingsProvider.getInstance(project).getState();
             state.setCompilerMatches(SettingsState.EMPTY.getCompilerMatches());
         };
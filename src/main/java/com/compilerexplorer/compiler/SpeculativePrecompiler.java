@@ -0,0 +1,248 @@
+package com.compilerexplorer.compiler;
+
+import com.compilerexplorer.common.*;
+import com.compilerexplorer.compiler.common.CompilerRunner;
+import com.compilerexplorer.datamodel.CompiledText;
+import com.compilerexplorer.datamodel.ProjectSettings;
+import com.compilerexplorer.datamodel.SourceSettings;
+import com.compilerexplorer.datamodel.state.CompilerMatches;
+import com.compilerexplorer.datamodel.state.Filters;
+import com.compilerexplorer.datamodel.state.LocalCompilerPath;
+import com.compilerexplorer.datamodel.state.SettingsState;
+import com.compilerexplorer.explorer.CompileRequest;
+import com.compilerexplorer.explorer.CompileResultCache;
+import com.compilerexplorer.explorer.CompileTransport;
+import com.compilerexplorer.explorer.RemoteCompiler;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.fileEditor.impl.EditorHistoryManager;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+public class SpeculativePrecompiler {
+    private static class Candidate {
+        @NotNull
+        private final SourceSettings sourceSettings;
+        @NotNull
+        private final String sourceText;
+        @NotNull
+        private final String remoteCompilerId;
+
+        Candidate(@NotNull SourceSettings sourceSettings_, @NotNull String sourceText_, @NotNull String remoteCompilerId_) {
+            sourceSettings = sourceSettings_;
+            sourceText = sourceText_;
+            remoteCompilerId = remoteCompilerId_;
+        }
+    }
+
+    @NotNull
+    private final Project project;
+    @NotNull
+    private final TaskRunner taskRunner;
+    @NotNull
+    private List<SourceSettings> projectSources;
+
+    public SpeculativePrecompiler(@NotNull Project project_) {
+        project = project_;
+        taskRunner = new TaskRunner();
+        projectSources = new ArrayList<>();
+    }
+
+    @NotNull
+    public Consumer<ProjectSettings> asProjectSettingsConsumer() {
+        return projectSettings -> {
+            taskRunner.reset();
+            projectSources = new ArrayList<>(projectSettings.getSettings());
+        };
+    }
+
+    @NotNull
+    public Consumer<CompiledText> asCompiledTextConsumer() {
+        return compiledText -> schedule(compiledText.getPreprocessedSource().getSourceRemoteMatched().getSourceCompilerSettings().getSourceSettings());
+    }
+
+    @NotNull
+    public <T> Consumer<T> yieldingTo(@NotNull Consumer<T> interactiveConsumer) {
+        return t -> {
+            taskRunner.reset();
+            interactiveConsumer.accept(t);
+        };
+    }
+
+    @NotNull
+    public Consumer<RefreshSignal> asRefreshSignalConsumer() {
+        return refreshSignal -> taskRunner.reset();
+    }
+
+    private void schedule(@NotNull SourceSettings currentSource) {
+        taskRunner.reset();
+        SettingsState state = CompilerExplorerSettingsProvider.getInstance(project).getState();
+        if (!state.getEnabled() || !state.getSpeculativeCompilation() || state.getSpeculativeBudget() <= 0) {
+            return;
+        }
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (SourceSettings sourceSettings : findLikelyNextSources(currentSource, state.getSpeculativeBudget())) {
+            Candidate candidate = createCandidate(state, sourceSettings);
+            if (candidate != null) {
+                candidates.add(candidate);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        int concurrency = Math.max(1, state.getSpeculativeConcurrency());
+        taskRunner.runTask(new Task.Backgroundable(project, Constants.PROJECT_TITLE + ": precompiling " + candidates.size() + " sources") {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor(Constants.PROJECT_TITLE + " precompiler", concurrency);
+                List<Future<?>> futures = new ArrayList<>();
+                try {
+                    List<String> preprocessedTexts = preprocessRemoteBatch(candidates, state, indicator);
+                    for (int i = 0; i < candidates.size(); ++i) {
+                        Candidate candidate = candidates.get(i);
+                        String preprocessedText = preprocessedTexts.get(i);
+                        futures.add(executor.submit(() -> precompile(candidate, preprocessedText, state, indicator)));
+                    }
+                    for (Future<?> future : futures) {
+                        try {
+                            FutureWaiter.waitFor(future, indicator);
+                        } catch (ProcessCanceledException canceledException) {
+                            throw canceledException;
+                        } catch (Exception exception) {
+                            // empty
+                        }
+                    }
+                } catch (ProcessCanceledException canceledException) {
+                    futures.forEach(future -> future.cancel(true));
+                } finally {
+                    executor.shutdownNow();
+                }
+            }
+        });
+    }
+
+    @NotNull
+    private List<SourceSettings> findLikelyNextSources(@NotNull SourceSettings currentSource, int budget) {
+        Map<VirtualFile, SourceSettings> sourcesByFile = new HashMap<>();
+        projectSources.forEach(sourceSettings -> sourcesByFile.putIfAbsent(sourceSettings.getSource(), sourceSettings));
+
+        LinkedHashSet<SourceSettings> likelyNext = new LinkedHashSet<>();
+        for (VirtualFile file : FileEditorManager.getInstance(project).getOpenFiles()) {
+            addIfKnown(likelyNext, sourcesByFile.get(file));
+        }
+
+        int currentIndex = projectSources.indexOf(currentSource);
+        if (currentIndex >= 0) {
+            for (int distance = 1; distance <= Constants.SPECULATIVE_NEIGHBOUR_DISTANCE; ++distance) {
+                if (currentIndex + distance < projectSources.size()) {
+                    addIfKnown(likelyNext, projectSources.get(currentIndex + distance));
+                }
+                if (currentIndex - distance >= 0) {
+                    addIfKnown(likelyNext, projectSources.get(currentIndex - distance));
+                }
+            }
+        }
+
+        List<VirtualFile> history = new ArrayList<>(EditorHistoryManager.getInstance(project).getFileList());
+        Collections.reverse(history);
+        for (VirtualFile file : history) {
+            addIfKnown(likelyNext, sourcesByFile.get(file));
+        }
+
+        likelyNext.remove(currentSource);
+        List<SourceSettings> result = new ArrayList<>(likelyNext);
+        return result.size() > budget ? result.subList(0, budget) : result;
+    }
+
+    private static void addIfKnown(@NotNull Set<SourceSettings> sources, @Nullable SourceSettings sourceSettings) {
+        if (sourceSettings != null) {
+            sources.add(sourceSettings);
+        }
+    }
+
+    @Nullable
+    private static Candidate createCandidate(@NotNull SettingsState state, @NotNull SourceSettings sourceSettings) {
+        CompilerMatches matches = state.getCompilerMatches().get(new LocalCompilerPath(sourceSettings.getCompiler().getAbsolutePath()));
+        if (matches == null) {
+            return null;
+        }
+        String remoteCompilerId = matches.getChosenMatch().getRemoteCompilerInfo().getId();
+        if (remoteCompilerId.isEmpty()) {
+            return null;
+        }
+        Document document = FileDocumentManager.getInstance().getDocument(sourceSettings.getSource());
+        if (document == null) {
+            return null;
+        }
+        return new Candidate(sourceSettings, SourcePreprocessor.getSourceText(sourceSettings, document), remoteCompilerId);
+    }
+
+    @NotNull
+    private List<String> preprocessRemoteBatch(@NotNull List<Candidate> candidates, @NotNull SettingsState state, @NotNull ProgressIndicator indicator) {
+        List<String> preprocessedTexts = new ArrayList<>(Collections.nCopies(candidates.size(), null));
+        List<Integer> remoteIndices = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); ++i) {
+            SourceSettings sourceSettings = candidates.get(i).sourceSettings;
+            if (SourcePreprocessor.shouldPreprocessLocally(state) && CompilerRunner.getHostMachine(sourceSettings.getConfiguration()).isRemote()) {
+                remoteIndices.add(i);
+            }
+        }
+        if (remoteIndices.size() < 2) {
+            return preprocessedTexts;
+        }
+        List<SourceSettings> sources = new ArrayList<>();
+        List<String> sourceTexts = new ArrayList<>();
+        for (int i : remoteIndices) {
+            sources.add(candidates.get(i).sourceSettings);
+            sourceTexts.add(candidates.get(i).sourceText);
+        }
+        try {
+            List<String> batchTexts = SourcePreprocessor.preprocessRemoteBatch(project, sources, sourceTexts, state, PreprocessingExecutor.Priority.BACKGROUND, indicator);
+            for (int i = 0; i < remoteIndices.size(); ++i) {
+                preprocessedTexts.set(remoteIndices.get(i), batchTexts.get(i));
+            }
+        } catch (ProcessCanceledException canceledException) {
+            throw canceledException;
+        } catch (Exception exception) {
+            // empty
+        }
+        return preprocessedTexts;
+    }
+
+    private void precompile(@NotNull Candidate candidate, @Nullable String batchPreprocessedText, @NotNull SettingsState state, @NotNull ProgressIndicator indicator) {
+        try {
+            indicator.checkCanceled();
+            String preprocessedText = batchPreprocessedText != null ? batchPreprocessedText : SourcePreprocessor.preprocess(project, candidate.sourceSettings, state, candidate.sourceText, PreprocessingExecutor.Priority.BACKGROUND, indicator);
+            indicator.checkCanceled();
+            String switches = RemoteCompiler.getCompilerOptions(candidate.sourceSettings, state.getAdditionalSwitches(), state.getIgnoreSwitches());
+            CompileRequest request = new CompileRequest(preprocessedText, switches, new Filters(state.getFilters()));
+            CompileResultCache cache = CompileResultCache.getInstance();
+            String cacheKey = CompileResultCache.getKey(state.getUrl(), candidate.remoteCompilerId, request);
+            if (cache.contains(cacheKey)) {
+                return;
+            }
+            CompiledText.CompiledResult compiledResult = FutureWaiter.waitFor(CompileTransport.getInstance(project).compile(state.getUrl(), candidate.remoteCompilerId, request, cacheKey), indicator);
+            if (CompileResultCache.isCacheable(request, compiledResult)) {
+                cache.put(cacheKey, compiledResult);
+            }
+        } catch (ProcessCanceledException canceledException) {
+            // empty
+        } catch (Exception exception) {
+            // empty
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.compilerexplorer.compiler.common;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.security.MessageDigest;
+
+public class CompilerFingerprint {
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+    private static final String SEPARATOR = ":";
+
+    private CompilerFingerprint() {
+    }
+
+    @NotNull
+    public static String compute(@NotNull File compiler) {
+        File file = resolve(compiler);
+        if (!file.isFile()) {
+            return "";
+        }
+        String hash = hashFile(file);
+        if (hash.isEmpty()) {
+            return "";
+        }
+        return file.length() + SEPARATOR + file.lastModified() + SEPARATOR + hash;
+    }
+
+    public static boolean isUnchanged(@NotNull File compiler, @NotNull String fingerprint) {
+        String[] parts = fingerprint.split(SEPARATOR);
+        if (parts.length != 3) {
+            return false;
+        }
+        File file = resolve(compiler);
+        return file.isFile()
+                && parts[0].equals(String.valueOf(file.length()))
+                && parts[1].equals(String.valueOf(file.lastModified()));
+    }
+
+    public static boolean hasSameContent(@NotNull String fingerprint, @NotNull String otherFingerprint) {
+        String[] parts = fingerprint.split(SEPARATOR);
+        String[] otherParts = otherFingerprint.split(SEPARATOR);
+        return parts.length == 3 && otherParts.length == 3 && parts[0].equals(otherParts[0]) && parts[2].equals(otherParts[2]);
+    }
+
+    @NotNull
+    private static File resolve(@NotNull File compiler) {
+        try {
+            return compiler.getCanonicalFile();
+        } catch (Exception exception) {
+            return compiler;
+        }
+    }
+
+    @NotNull
+    private static String hashFile(@NotNull File file) {
+        try (InputStream stream = new FileInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[HASH_BUFFER_SIZE];
+            int read;
+            while ((read = stream.read(buffer)) >= 0) {
+                digest.update(buffer, 0, read);
+            }
+            StringBuilder builder = new StringBuilder();
+            for (byte b : digest.digest()) {
+                builder.append(String.format("%02x", b));
+            }
+            return builder.toString();
+        } catch (Exception exception) {
+            return "";
+        }
+    }
+}
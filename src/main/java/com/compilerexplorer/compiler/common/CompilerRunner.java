@@ -1,7 +1,12 @@
 package com.compilerexplorer.compiler.common;
 
+import com.compilerexplorer.common.Constants;
+import com.compilerexplorer.common.PipelineMetrics;
 import com.intellij.execution.ExecutionException;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.ProgressManager;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.*;
 import com.intellij.execution.configurations.GeneralCommandLine;
@@ -16,14 +21,30 @@ import com.jetbrains.cidr.cpp.toolchains.CPPEnvironment;
 import com.jetbrains.cidr.lang.workspace.OCResolveConfiguration;
 import com.jetbrains.cidr.system.HostMachine;
 
+import java.nio.charset.Charset;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
 public class CompilerRunner {
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    private static final long WAIT_POLL_MILLIS = 50;
+
     @NotNull
     private final String stdout;
     @NotNull
     private final String stderr;
+    private final boolean stdoutTruncated;
     private final int exitCode;
+    private final long spawnMillis;
+    private final long runMillis;
 
     public static HostMachine getHostMachine(@NotNull OCResolveConfiguration configuration_) {
+        return getEnvironment(configuration_).getHostMachine();
+    }
+
+    @NotNull
+    public static CPPEnvironment getEnvironment(@NotNull OCResolveConfiguration configuration_) {
         try {
             CMakeAppRunConfiguration runConfiguration = CMakeAppRunConfiguration.getSelectedRunConfiguration(configuration_.getProject());
             CMakeBuildProfileExecutionTarget executionTarget = CMakeAppRunConfiguration.getSelectedBuildProfile(configuration_.getProject());
@@ -35,14 +56,29 @@ public class CompilerRunner {
             final CMakeProfileInfo cMakeProfileInfo = cMakeWorkspace.getProfileInfoFor(buildAndRunConfiguration.buildConfiguration);
             final CPPEnvironment environment = cMakeProfileInfo.getEnvironment();
             assert environment != null;
-            return environment.getHostMachine();
+            return environment;
         } catch (ExecutionException e) {
             throw new RuntimeException("Fatal error");
         }
     }
 
-    public CompilerRunner(@NotNull OCResolveConfiguration configuration_, @NotNull String[] commandArray, @NotNull File workingDir, @NotNull String stdin) {
-        ProcessOutput output;
+    public CompilerRunner(@NotNull OCResolveConfiguration configuration_, @NotNull String[] commandArray, @NotNull File workingDir, @NotNull CharSequence stdin, @NotNull CompilerTimeouts.Kind kind) {
+        this(configuration_, commandArray, workingDir, stdin, commandArray[0], kind, 1, null);
+    }
+
+    public CompilerRunner(@NotNull OCResolveConfiguration configuration_, @NotNull String[] commandArray, @NotNull File workingDir, @NotNull CharSequence stdin, @NotNull CompilerTimeouts.Kind kind, @Nullable Consumer<String> stdoutLineConsumer) {
+        this(configuration_, commandArray, workingDir, stdin, commandArray[0], kind, 1, stdoutLineConsumer);
+    }
+
+    public CompilerRunner(@NotNull OCResolveConfiguration configuration_,
+                          @NotNull String[] commandArray,
+                          @NotNull File workingDir,
+                          @NotNull CharSequence stdin,
+                          @NotNull String compilerPath,
+                          @NotNull CompilerTimeouts.Kind kind,
+                          int runs,
+                          @Nullable Consumer<String> stdoutLineConsumer) {
+        Charset charset = Charset.defaultCharset();
         try {
             final HostMachine host = getHostMachine(configuration_);
 
@@ -55,33 +91,81 @@ public class CompilerRunner {
                     continue;
                 cl.addParameter(parameter);
             }
+
+            long spawnStartNanos = System.nanoTime();
             final BaseProcessHandler<?> process = host.createProcess(cl, false, false);
+            long runStartNanos = System.nanoTime();
+            spawnMillis = TimeUnit.NANOSECONDS.toMillis(runStartNanos - spawnStartNanos);
+            PipelineMetrics.getInstance(configuration_.getProject()).record(PipelineMetrics.Stage.PROCESS_SPAWN, runStartNanos - spawnStartNanos);
+
             Runnable shutdownHook = () -> host.killProcessTree(process);
             ShutDownTracker.getInstance().registerShutdownTask(shutdownHook);
-            OutputStream stdinStream = process.getProcess().getOutputStream();
-            stdinStream.write(stdin.getBytes());
-            stdinStream.flush();
-            stdinStream.close();
-
+            OutputCapture stdoutCapture = new OutputCapture(Constants.COMPILER_STDOUT_MAX_CHARS, stdoutLineConsumer);
+            OutputCapture stderrCapture = new OutputCapture(Constants.COMPILER_STDERR_MAX_CHARS, null);
             try {
-                output = host.runProcess(cl, null, 10000);
-                if (output.isCancelled()) {
-                    throw new ProcessCanceledException();
+                Process javaProcess = process.getProcess();
+                Future<?> stdinWriter = ApplicationManager.getApplication().executeOnPooledThread(() -> writeStdin(javaProcess.getOutputStream(), stdin, charset));
+                Future<?> stdoutReader = ApplicationManager.getApplication().executeOnPooledThread(() -> readOutput(javaProcess.getInputStream(), charset, stdoutCapture));
+                Future<?> stderrReader = ApplicationManager.getApplication().executeOnPooledThread(() -> readOutput(javaProcess.getErrorStream(), charset, stderrCapture));
+
+                long timeoutMillis = CompilerTimeouts.getTimeoutMillis(compilerPath, kind, runs);
+                long deadlineNanos = runStartNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+                while (!javaProcess.waitFor(WAIT_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    ProgressManager.checkCanceled();
+                    if (System.nanoTime() > deadlineNanos) {
+                        CompilerTimeouts.record(compilerPath, kind, runs, timeoutMillis);
+                        throw new RuntimeException("Timed out after " + timeoutMillis + " ms");
+                    }
                 }
+                stdinWriter.get();
+                stdoutReader.get();
+                stderrReader.get();
+                checkCapture(stdoutCapture, "output");
+                checkCapture(stderrCapture, "error output");
+                stdoutTruncated = stdoutCapture.isTruncated();
+                stdout = stdoutTruncated ? "" : stdoutCapture.getText();
+                stderr = stderrCapture.getText();
+                exitCode = javaProcess.exitValue();
+                runMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - runStartNanos);
+                CompilerTimeouts.record(compilerPath, kind, runs, runMillis);
             } finally {
                 ShutDownTracker.getInstance().unregisterShutdownTask(shutdownHook);
                 shutdownHook.run();
             }
+        } catch (ProcessCanceledException canceledException) {
+            throw canceledException;
+        } catch (Exception e) {
+            throw(new RuntimeException("Failed to run compiler: "+e.getMessage()));
+        }
+    }
 
-
+    private static void writeStdin(@NotNull OutputStream stream, @NotNull CharSequence stdin, @NotNull Charset charset) {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(stream, charset), STREAM_BUFFER_SIZE)) {
+            writer.append(stdin);
+        } catch (IOException exception) {
+            // empty
         }
-        catch (Exception e) {
-            throw(new RuntimeException("Failed to run compiler: "+e.getMessage()));
+    }
+
+    private static void readOutput(@NotNull InputStream stream, @NotNull Charset charset, @NotNull OutputCapture capture) {
+        char[] buffer = new char[STREAM_BUFFER_SIZE];
+        try (Reader reader = new InputStreamReader(stream, charset)) {
+            int read;
+            while ((read = reader.read(buffer)) >= 0) {
+                capture.append(buffer, 0, read);
+            }
+        } catch (IOException exception) {
+            capture.fail(exception);
+        } finally {
+            capture.close();
         }
+    }
 
-        stdout = output.getStdout();
-        stderr = output.getStderr();
-        exitCode = output.isExitCodeSet() ? output.getExitCode() : 0;
+    private static void checkCapture(@NotNull OutputCapture capture, @NotNull String name) throws IOException {
+        IOException failure = capture.getFailure();
+        if (failure != null) {
+            throw new IOException("Cannot read compiler " + name + " after " + capture.getLength() + " characters: " + failure.getMessage(), failure);
+        }
     }
 
     @NotNull
@@ -89,6 +173,10 @@ public class CompilerRunner {
         return stdout;
     }
 
+    public boolean isStdoutTruncated() {
+        return stdoutTruncated;
+    }
+
     @NotNull
     public String getStderr() {
         return stderr;
@@ -97,4 +185,12 @@ public class CompilerRunner {
     public int getExitCode() {
         return exitCode;
     }
+
+    public long getSpawnMillis() {
+        return spawnMillis;
+    }
+
+    public long getRunMillis() {
+        return runMillis;
+    }
 }
@@ -0,0 +1,40 @@
+package com.compilerexplorer.compiler.common;
+
+import com.compilerexplorer.common.Constants;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class CompilerTimeouts {
+    public enum Kind {
+        PROBE,
+        PREPROCESS,
+        BATCH
+    }
+
+    @NotNull
+    private static final Map<String, Double> smoothedRunMillis = new ConcurrentHashMap<>();
+
+    private CompilerTimeouts() {
+    }
+
+    public static long getTimeoutMillis(@NotNull String compilerPath, @NotNull Kind kind, int runs) {
+        Double smoothed = smoothedRunMillis.get(getKey(compilerPath, kind));
+        long timeout = Constants.COMPILER_TIMEOUT_MILLIS;
+        if (smoothed != null) {
+            timeout = Math.max(Constants.COMPILER_MIN_TIMEOUT_MILLIS, Math.min(Constants.COMPILER_MAX_TIMEOUT_MILLIS, (long)(smoothed * Constants.COMPILER_TIMEOUT_FACTOR)));
+        }
+        return timeout * Math.max(1, runs);
+    }
+
+    public static void record(@NotNull String compilerPath, @NotNull Kind kind, int runs, long runMillis) {
+        double sample = (double)runMillis / Math.max(1, runs);
+        smoothedRunMillis.merge(getKey(compilerPath, kind), sample, (smoothed, newSample) -> smoothed + Constants.COMPILER_RUN_SMOOTHING * (newSample - smoothed));
+    }
+
+    @NotNull
+    private static String getKey(@NotNull String compilerPath, @NotNull Kind kind) {
+        return kind.name() + ":" + compilerPath;
+    }
+}
@@ -0,0 +1,99 @@
+package com.compilerexplorer.compiler.common;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+public class LineMarker {
+    private final int line;
+    @Nullable
+    private final String file;
+    @NotNull
+    private final String flags;
+
+    public LineMarker(int line_, @Nullable String file_, @NotNull String flags_) {
+        line = line_;
+        file = file_;
+        flags = flags_;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    @Nullable
+    public String getFile() {
+        return file;
+    }
+
+    @NotNull
+    public String getFlags() {
+        return flags;
+    }
+
+    public boolean isPseudoFile() {
+        return file != null && file.startsWith("<");
+    }
+
+    @NotNull
+    public String format() {
+        return "# " + line + (file != null ? " \"" + quote(file) + "\"" : "") + (flags.isEmpty() ? "" : " " + flags);
+    }
+
+    @Nullable
+    public static LineMarker parse(@NotNull CharSequence text, int begin, int end) {
+        int i = begin;
+        if (i >= end || text.charAt(i) != '#') {
+            return null;
+        }
+        ++i;
+        if (i + 4 <= end && text.subSequence(i, i + 4).toString().equals("line")) {
+            i += 4;
+        }
+        int spacesBegin = i;
+        while (i < end && text.charAt(i) == ' ') {
+            ++i;
+        }
+        if (i == spacesBegin) {
+            return null;
+        }
+        int line = 0;
+        int digitsBegin = i;
+        while (i < end && Character.isDigit(text.charAt(i))) {
+            line = line * 10 + (text.charAt(i) - '0');
+            ++i;
+        }
+        if (i == digitsBegin) {
+            return null;
+        }
+        while (i < end && text.charAt(i) == ' ') {
+            ++i;
+        }
+        if (i == end) {
+            return new LineMarker(line, null, "");
+        }
+        if (text.charAt(i) != '"') {
+            return null;
+        }
+        ++i;
+        StringBuilder file = new StringBuilder();
+        while (i < end && text.charAt(i) != '"') {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < end) {
+                ++i;
+                c = text.charAt(i);
+            }
+            file.append(c);
+            ++i;
+        }
+        if (i == end) {
+            return null;
+        }
+        ++i;
+        return new LineMarker(line, file.toString(), text.subSequence(i, end).toString().trim());
+    }
+
+    @NotNull
+    public static String quote(@NotNull String file) {
+        return file.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,93 @@
+package com.compilerexplorer.compiler.common;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+public class LiteralState {
+    private static final Set<String> RAW_PREFIXES = new HashSet<>(Arrays.asList("R", "LR", "uR", "UR", "u8R"));
+
+    @Nullable
+    private String rawDelimiter;
+    private char quote;
+    private boolean continued;
+
+    public boolean isInside() {
+        return rawDelimiter != null || quote != 0 || continued;
+    }
+
+    public void scan(@NotNull String text, int begin, int end) {
+        continued = false;
+        int i = begin;
+        while (i < end) {
+            if (rawDelimiter != null) {
+                int close = text.indexOf(")" + rawDelimiter + "\"", i);
+                if (close < 0 || close >= end) {
+                    return;
+                }
+                i = close + rawDelimiter.length() + 2;
+                rawDelimiter = null;
+            } else if (quote != 0) {
+                char c = text.charAt(i);
+                if (c == '\\') {
+                    i += 2;
+                } else {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                    ++i;
+                }
+            } else {
+                char c = text.charAt(i);
+                if (Character.isJavaIdentifierStart(c)) {
+                    int identifierBegin = i;
+                    while (i < end && Character.isJavaIdentifierPart(text.charAt(i))) {
+                        ++i;
+                    }
+                    String identifier = text.substring(identifierBegin, i);
+                    if (i < end && text.charAt(i) == '"' && RAW_PREFIXES.contains(identifier)) {
+                        int open = text.indexOf('(', i + 1);
+                        if (open < 0 || open >= end) {
+                            return;
+                        }
+                        rawDelimiter = text.substring(i + 1, open);
+                        i = open + 1;
+                    }
+                } else if (Character.isDigit(c) || (c == '.' && i + 1 < end && Character.isDigit(text.charAt(i + 1)))) {
+                    ++i;
+                    while (i < end) {
+                        char d = text.charAt(i);
+                        char previous = text.charAt(i - 1);
+                        if (Character.isJavaIdentifierPart(d) || d == '.' || (d == '\'' && i + 1 < end && Character.isJavaIdentifierPart(text.charAt(i + 1)))
+                                || ((d == '+' || d == '-') && "eEpP".indexOf(previous) >= 0)) {
+                            ++i;
+                        } else {
+                            break;
+                        }
+                    }
+                } else if (c == '"' || c == '\'') {
+                    quote = c;
+                    ++i;
+                } else if (c == '/' && i + 1 < end && text.charAt(i + 1) == '/') {
+                    break;
+                } else {
+                    ++i;
+                }
+            }
+        }
+        if (rawDelimiter != null) {
+            return;
+        }
+        int last = end;
+        while (last > begin && Character.isWhitespace(text.charAt(last - 1))) {
+            --last;
+        }
+        continued = last > begin && text.charAt(last - 1) == '\\';
+        if (!continued) {
+            quote = 0;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.compilerexplorer.compiler.common;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+public class OutputCapture {
+    private final long maxChars;
+    @Nullable
+    private final Consumer<String> lineConsumer;
+    @NotNull
+    private final StringBuilder text = new StringBuilder();
+    private long length;
+    private boolean truncated;
+    @Nullable
+    private IOException failure;
+
+    public OutputCapture(long maxChars_, @Nullable Consumer<String> lineConsumer_) {
+        maxChars = maxChars_;
+        lineConsumer = lineConsumer_;
+    }
+
+    public void append(@NotNull char[] buffer, int offset, int count) {
+        int kept = (int)Math.min(count, maxChars - length);
+        if (kept < count) {
+            truncated = true;
+        }
+        if (kept <= 0) {
+            return;
+        }
+        length += kept;
+        if (lineConsumer == null) {
+            text.append(buffer, offset, kept);
+            return;
+        }
+        int end = offset + kept;
+        int lineBegin = offset;
+        for (int i = offset; i < end; ++i) {
+            if (buffer[i] == '\n') {
+                text.append(buffer, lineBegin, i - lineBegin);
+                lineConsumer.accept(text.toString());
+                text.setLength(0);
+                lineBegin = i + 1;
+            }
+        }
+        text.append(buffer, lineBegin, end - lineBegin);
+    }
+
+    public void close() {
+        if (lineConsumer != null && !truncated && text.length() != 0) {
+            lineConsumer.accept(text.toString());
+            text.setLength(0);
+        }
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public void fail(@NotNull IOException exception) {
+        if (failure == null) {
+            failure = exception;
+        }
+    }
+
+    @Nullable
+    public IOException getFailure() {
+        return failure;
+    }
+
+    @NotNull
+    public String getText() {
+        return lineConsumer != null ? "" : text.toString();
+    }
+}
@@ -0,0 +1,96 @@
+package com.compilerexplorer.compiler.common;
+
+import org.jetbrains.annotations.NotNull;
+
+public class PreprocessedTextMinimizer {
+    private PreprocessedTextMinimizer() {
+    }
+
+    @NotNull
+    public static String minimize(@NotNull String preprocessedText) {
+        StringBuilder builder = new StringBuilder(preprocessedText.length() / 2);
+        String file = null;
+        String systemFlags = "";
+        int line = 1;
+        String outputFile = null;
+        String outputSystemFlags = "";
+        int outputLine = 1;
+        LiteralState literalState = new LiteralState();
+
+        int lineBegin = 0;
+        int length = preprocessedText.length();
+        while (lineBegin < length) {
+            int lineEnd = preprocessedText.indexOf('\n', lineBegin);
+            if (lineEnd < 0) {
+                lineEnd = length;
+            }
+            if (literalState.isInside()) {
+                literalState.scan(preprocessedText, lineBegin, lineEnd);
+                builder.append(preprocessedText, lineBegin, lineEnd).append('\n');
+                ++outputLine;
+                ++line;
+                lineBegin = lineEnd + 1;
+                continue;
+            }
+            literalState.scan(preprocessedText, lineBegin, lineEnd);
+            int contentEnd = lineEnd;
+            while (!literalState.isInside() && contentEnd > lineBegin && Character.isWhitespace(preprocessedText.charAt(contentEnd - 1))) {
+                --contentEnd;
+            }
+
+            LineMarker marker = contentEnd > lineBegin && preprocessedText.charAt(lineBegin) == '#' ? LineMarker.parse(preprocessedText, lineBegin, contentEnd) : null;
+            if (marker != null) {
+                if (marker.getFile() != null) {
+                    file = marker.getFile();
+                    systemFlags = getSystemFlags(marker.getFlags());
+                }
+                line = marker.getLine();
+                if (lineBegin == 0 && file != null) {
+                    builder.append(new LineMarker(line, file, systemFlags).format()).append('\n');
+                    outputFile = file;
+                    outputSystemFlags = systemFlags;
+                    outputLine = line;
+                }
+            } else {
+                if (contentEnd > lineBegin) {
+                    if (file != null && (!file.equals(outputFile) || !systemFlags.equals(outputSystemFlags))) {
+                        builder.append(new LineMarker(line, file, systemFlags).format()).append('\n');
+                        outputFile = file;
+                        outputSystemFlags = systemFlags;
+                        outputLine = line;
+                    } else if (line != outputLine) {
+                        String lineDirective = new LineMarker(line, null, "").format();
+                        int gap = line - outputLine;
+                        if (gap > 0 && gap <= lineDirective.length() + 1) {
+                            for (int i = 0; i < gap; ++i) {
+                                builder.append('\n');
+                            }
+                        } else {
+                            builder.append(lineDirective).append('\n');
+                        }
+                        outputLine = line;
+                    }
+                    builder.append(preprocessedText, lineBegin, contentEnd).append('\n');
+                    ++outputLine;
+                }
+                ++line;
+            }
+            lineBegin = lineEnd + 1;
+        }
+        return builder.toString();
+    }
+
+    @NotNull
+    private static String getSystemFlags(@NotNull String flags) {
+        StringBuilder systemFlags = new StringBuilder();
+        for (String flag : flags.split(" ")) {
+            if (flag.equals("3") || flag.equals("4")) {
+                if (systemFlags.length() != 0) {
+                    systemFlags.append(' ');
+                }
+                systemFlags.append(flag);
+            }
+        }
+        return systemFlags.toString();
+    }
+}
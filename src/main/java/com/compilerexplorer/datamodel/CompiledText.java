@@ -18,7 +18,7 @@ public class CompiledText {
             line = other.line;
         }
 
-        public SourceLocation(@NotNull String file_, int line_) {
+        public SourceLocation(@Nullable String file_, int line_) {
             file = file_;
             line = line_;
         }
@@ -17,6 +17,9 @@ public class CompilerMatches {
     @NotNull
     @Property
     private List<CompilerMatch> otherMatches = new ArrayList<>();
+    @NotNull
+    @Property
+    private String catalogHash = "";
 
     public CompilerMatches() {
         // empty
@@ -27,9 +30,10 @@ public class CompilerMatches {
         copyFrom(other);
     }
 
-    public CompilerMatches(@NotNull CompilerMatch chosenMatch_, @NotNull List<CompilerMatch> otherMatches_) {
+    public CompilerMatches(@NotNull CompilerMatch chosenMatch_, @NotNull List<CompilerMatch> otherMatches_, @NotNull String catalogHash_) {
         setChosenMatch(chosenMatch_);
         setOtherMatches(otherMatches_);
+        setCatalogHash(catalogHash_);
     }
 
     @NotNull
@@ -50,15 +54,26 @@ public class CompilerMatches {
         otherMatches = otherMatches_.stream().map(CompilerMatch::new).collect(Collectors.toList());
     }
 
+    @NotNull
+    public String getCatalogHash() {
+        return catalogHash;
+    }
+
+    private void setCatalogHash(@NotNull String catalogHash_) {
+        catalogHash = catalogHash_;
+    }
+
     private void copyFrom(@NotNull CompilerMatches other) {
         setChosenMatch(other.getChosenMatch());
         setOtherMatches(other.getOtherMatches());
+        setCatalogHash(other.getCatalogHash());
     }
 
     @Override
     public int hashCode() {
         return getChosenMatch().hashCode()
                 + getOtherMatches().hashCode()
+                + getCatalogHash().hashCode()
                 ;
     }
 
@@ -70,6 +85,7 @@ public class CompilerMatches {
         CompilerMatches other = (CompilerMatches)obj;
         return getChosenMatch().equals(other.getChosenMatch())
                 && getOtherMatches().equals(other.getOtherMatches())
+                && getCatalogHash().equals(other.getCatalogHash())
                 ;
     }
 
@@ -17,6 +17,9 @@ public class LocalCompilerSettings {
     @NotNull
     @Property
     private String target = "";
+    @NotNull
+    @Property
+    private String fingerprint = "";
 
     public LocalCompilerSettings() {
         // empty
@@ -26,10 +29,11 @@ public class LocalCompilerSettings {
         copyFrom(other);
     }
 
-    public LocalCompilerSettings(@NotNull String name_, @NotNull String version_, @NotNull String target_) {
+    public LocalCompilerSettings(@NotNull String name_, @NotNull String version_, @NotNull String target_, @NotNull String fingerprint_) {
         setName(name_);
         setVersion(version_);
         setTarget(target_);
+        setFingerprint(fingerprint_);
     }
 
     @NotNull
@@ -59,10 +63,20 @@ public class LocalCompilerSettings {
         target = target_;
     }
 
+    @NotNull
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    private void setFingerprint(@NotNull String fingerprint_) {
+        fingerprint = fingerprint_;
+    }
+
     private void copyFrom(@NotNull LocalCompilerSettings other) {
         setName(other.getName());
         setVersion(other.getVersion());
         setTarget(other.getTarget());
+        setFingerprint(other.getFingerprint());
     }
 
     @Override
@@ -70,6 +84,7 @@ public class LocalCompilerSettings {
         return getName().hashCode()
              + getVersion().hashCode()
              + getTarget().hashCode()
+             + getFingerprint().hashCode()
         ;
     }
 
@@ -82,6 +97,7 @@ public class LocalCompilerSettings {
         return getName().equals(other.getName())
             && getVersion().equals(other.getVersion())
             && getTarget().equals(other.getTarget())
+            && getFingerprint().equals(other.getFingerprint())
         ;
     }
 }
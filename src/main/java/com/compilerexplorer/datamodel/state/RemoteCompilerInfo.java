@@ -35,6 +35,13 @@ public class RemoteCompilerInfo {
         copyFrom(other);
     }
 
+    public RemoteCompilerInfo(@NotNull String id_, @NotNull String name_, @NotNull String language_, @NotNull String version_) {
+        setId(id_);
+        setName(name_);
+        setLanguage(language_);
+        setVersion(version_);
+    }
+
     @NotNull
     public String getId() {
         return getStringOrEmpty(id);
@@ -25,6 +25,15 @@ public class SettingsState {
     @NotNull
     private static final Color DEFAULT_HIGHLIGHT_COLOR = Constants.DEFAULT_HIGHLIGHT_COLOR;
     private static final long DEFAULT_DELAY_MILLIS = Constants.DEFAULT_DELAY_MILLIS;
+    private static final int DEFAULT_HTTP_MAX_CONNECTIONS = Constants.DEFAULT_HTTP_MAX_CONNECTIONS;
+    private static final int DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE = Constants.DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE;
+    private static final int DEFAULT_COMPARE_PARALLELISM = Constants.DEFAULT_COMPARE_PARALLELISM;
+    private static final int DEFAULT_SPECULATIVE_CONCURRENCY = Constants.DEFAULT_SPECULATIVE_CONCURRENCY;
+    private static final int DEFAULT_SPECULATIVE_BUDGET = Constants.DEFAULT_SPECULATIVE_BUDGET;
+    @NotNull
+    private static final String DEFAULT_REPLICA_URLS = Constants.DEFAULT_REPLICA_URLS;
+    private static final int DEFAULT_LOCAL_PREPROCESS_CONCURRENCY = Constants.DEFAULT_LOCAL_PREPROCESS_CONCURRENCY;
+    private static final int DEFAULT_REMOTE_PREPROCESS_CONCURRENCY = Constants.DEFAULT_REMOTE_PREPROCESS_CONCURRENCY;
 
     @NotNull
     public static final SettingsState EMPTY = new SettingsState();
@@ -70,6 +79,25 @@ public class SettingsState {
     private long delayMillis = DEFAULT_DELAY_MILLIS;
     @Property
     private boolean initialNoticeShown = false;
+    @Property
+    private int httpMaxConnections = DEFAULT_HTTP_MAX_CONNECTIONS;
+    @Property
+    private int httpMaxConnectionsPerRoute = DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE;
+    @Property
+    private int compareParallelism = DEFAULT_COMPARE_PARALLELISM;
+    @Property
+    private boolean speculativeCompilation = false;
+    @Property
+    private int speculativeConcurrency = DEFAULT_SPECULATIVE_CONCURRENCY;
+    @Property
+    private int speculativeBudget = DEFAULT_SPECULATIVE_BUDGET;
+    @NotNull
+    @Property
+    private String replicaUrls = DEFAULT_REPLICA_URLS;
+    @Property
+    private int localPreprocessConcurrency = DEFAULT_LOCAL_PREPROCESS_CONCURRENCY;
+    @Property
+    private int remotePreprocessConcurrency = DEFAULT_REMOTE_PREPROCESS_CONCURRENCY;
 
     public SettingsState() {
         // empty
@@ -221,6 +249,79 @@ public class SettingsState {
         initialNoticeShown = initialNoticeShown_;
     }
 
+    public int getHttpMaxConnections() {
+        return httpMaxConnections;
+    }
+
+    public void setHttpMaxConnections(int httpMaxConnections_) {
+        httpMaxConnections = httpMaxConnections_;
+    }
+
+    public int getHttpMaxConnectionsPerRoute() {
+        return httpMaxConnectionsPerRoute;
+    }
+
+    public void setHttpMaxConnectionsPerRoute(int httpMaxConnectionsPerRoute_) {
+        httpMaxConnectionsPerRoute = httpMaxConnectionsPerRoute_;
+    }
+
+    public int getCompareParallelism() {
+        return compareParallelism;
+    }
+
+    public void setCompareParallelism(int compareParallelism_) {
+        compareParallelism = compareParallelism_;
+    }
+
+    public boolean getSpeculativeCompilation() {
+        return speculativeCompilation;
+    }
+
+    public void setSpeculativeCompilation(boolean speculativeCompilation_) {
+        speculativeCompilation = speculativeCompilation_;
+    }
+
+    public int getSpeculativeConcurrency() {
+        return speculativeConcurrency;
+    }
+
+    public void setSpeculativeConcurrency(int speculativeConcurrency_) {
+        speculativeConcurrency = speculativeConcurrency_;
+    }
+
+    public int getSpeculativeBudget() {
+        return speculativeBudget;
+    }
+
+    public void setSpeculativeBudget(int speculativeBudget_) {
+        speculativeBudget = speculativeBudget_;
+    }
+
+    @NotNull
+    public String getReplicaUrls() {
+        return replicaUrls;
+    }
+
+    public void setReplicaUrls(@NotNull String replicaUrls_) {
+        replicaUrls = replicaUrls_;
+    }
+
+    public int getLocalPreprocessConcurrency() {
+        return localPreprocessConcurrency;
+    }
+
+    public void setLocalPreprocessConcurrency(int localPreprocessConcurrency_) {
+        localPreprocessConcurrency = localPreprocessConcurrency_;
+    }
+
+    public int getRemotePreprocessConcurrency() {
+        return remotePreprocessConcurrency;
+    }
+
+    public void setRemotePreprocessConcurrency(int remotePreprocessConcurrency_) {
+        remotePreprocessConcurrency = remotePreprocessConcurrency_;
+    }
+
     public void copyFrom(@NotNull SettingsState other) {
         setEnabled(other.getEnabled());
         setUrl(other.getUrl());
@@ -239,6 +340,15 @@ public class SettingsState {
         setHighlightColorRGB(other.getHighlightColorRGB());
         setDelayMillis(other.getDelayMillis());
         setInitialNoticeShown(other.getInitialNoticeShown());
+        setHttpMaxConnections(other.getHttpMaxConnections());
+        setHttpMaxConnectionsPerRoute(other.getHttpMaxConnectionsPerRoute());
+        setCompareParallelism(other.getCompareParallelism());
+        setSpeculativeCompilation(other.getSpeculativeCompilation());
+        setSpeculativeConcurrency(other.getSpeculativeConcurrency());
+        setSpeculativeBudget(other.getSpeculativeBudget());
+        setReplicaUrls(other.getReplicaUrls());
+        setLocalPreprocessConcurrency(other.getLocalPreprocessConcurrency());
+        setRemotePreprocessConcurrency(other.getRemotePreprocessConcurrency());
     }
 
     @Override
@@ -260,6 +370,15 @@ public class SettingsState {
                 + getHighlightColorRGB()
                 + ((int) getDelayMillis())
                 + (getInitialNoticeShown() ? 1 : 0)
+                + getHttpMaxConnections()
+                + getHttpMaxConnectionsPerRoute()
+                + getCompareParallelism()
+                + (getSpeculativeCompilation() ? 1 : 0)
+                + getSpeculativeConcurrency()
+                + getSpeculativeBudget()
+                + getReplicaUrls().hashCode()
+                + getLocalPreprocessConcurrency()
+                + getRemotePreprocessConcurrency()
         ;
     }
 
@@ -286,6 +405,15 @@ public class SettingsState {
                 && getHighlightColorRGB() == other.getHighlightColorRGB()
                 && getDelayMillis() == other.getDelayMillis()
                 && getInitialNoticeShown() == other.getInitialNoticeShown()
+                && getHttpMaxConnections() == other.getHttpMaxConnections()
+                && getHttpMaxConnectionsPerRoute() == other.getHttpMaxConnectionsPerRoute()
+                && getCompareParallelism() == other.getCompareParallelism()
+                && getSpeculativeCompilation() == other.getSpeculativeCompilation()
+                && getSpeculativeConcurrency() == other.getSpeculativeConcurrency()
+                && getSpeculativeBudget() == other.getSpeculativeBudget()
+                && getReplicaUrls().equals(other.getReplicaUrls())
+                && getLocalPreprocessConcurrency() == other.getLocalPreprocessConcurrency()
+                && getRemotePreprocessConcurrency() == other.getRemotePreprocessConcurrency()
         ;
     }
 }
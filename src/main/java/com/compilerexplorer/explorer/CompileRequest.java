@@ -0,0 +1,28 @@
+package com.compilerexplorer.explorer;
+
+import com.compilerexplorer.datamodel.state.Filters;
+import org.jetbrains.annotations.NotNull;
+
+public class CompileRequest {
+    public static class CompilerOptions {
+        public boolean executorRequest;
+    }
+
+    public static class Options {
+        public String userArguments;
+        public Filters filters;
+        public CompilerOptions compilerOptions;
+    }
+
+    public String source;
+    public Options options;
+
+    public CompileRequest(@NotNull String source_, @NotNull String userArguments_, @NotNull Filters filters_) {
+        source = source_;
+        options = new Options();
+        options.userArguments = userArguments_;
+        options.filters = filters_;
+        options.compilerOptions = new CompilerOptions();
+        options.compilerOptions.executorRequest = false;
+    }
+}
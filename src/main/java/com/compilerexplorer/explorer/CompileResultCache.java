@@ -0,0 +1,254 @@
+package com.compilerexplorer.explorer;
+
+import com.compilerexplorer.common.Constants;
+import com.compilerexplorer.datamodel.CompiledText;
+import com.google.gson.Gson;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.components.ServiceManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class CompileResultCache {
+    private static final String FILE_SUFFIX = ".json.gz";
+    private static final int CHUNK_OVERHEAD_BYTES = 64;
+
+    @NotNull
+    private final LinkedHashMap<String, CompiledText.CompiledResult> memoryCache = new LinkedHashMap<>(16, 0.75f, true);
+    @NotNull
+    private final Map<String, Long> memorySizes = new HashMap<>();
+    private long memoryBytes = 0;
+    @NotNull
+    private final Path diskDirectory;
+    @NotNull
+    private final Object diskLock = new Object();
+    private long diskBytes = -1;
+    @NotNull
+    private final AtomicLong memoryHits = new AtomicLong();
+    @NotNull
+    private final AtomicLong diskHits = new AtomicLong();
+    @NotNull
+    private final AtomicLong misses = new AtomicLong();
+
+    public static CompileResultCache getInstance() {
+        return ServiceManager.getService(CompileResultCache.class);
+    }
+
+    @SuppressWarnings("WeakerAccess")
+    public CompileResultCache() {
+        diskDirectory = Paths.get(PathManager.getSystemPath(), Constants.COMPILE_CACHE_DIRECTORY);
+    }
+
+    @NotNull
+    public static String getKey(@NotNull String url, @NotNull String remoteCompilerId, @NotNull CompileRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, url);
+            update(digest, remoteCompilerId);
+            update(digest, request.options.userArguments);
+            update(digest, new Gson().toJson(request.options.filters));
+            update(digest, request.source);
+            StringBuilder builder = new StringBuilder();
+            for (byte b : digest.digest()) {
+                builder.append(String.format("%02x", b));
+            }
+            return builder.toString();
+        } catch (Exception exception) {
+            throw new RuntimeException("Cannot hash compile request: " + exception.getMessage());
+        }
+    }
+
+    public static boolean isCacheable(@NotNull CompileRequest request, @NotNull CompiledText.CompiledResult result) {
+        return result.code == 0 && !request.options.filters.getExecute();
+    }
+
+    @Nullable
+    public CompiledText.CompiledResult get(@NotNull String key) {
+        synchronized (this) {
+            CompiledText.CompiledResult result = memoryCache.get(key);
+            if (result != null) {
+                memoryHits.incrementAndGet();
+                return result;
+            }
+        }
+        CompiledText.CompiledResult result = readFromDisk(key);
+        if (result != null) {
+            diskHits.incrementAndGet();
+            putInMemory(key, result);
+            return result;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public boolean contains(@NotNull String key) {
+        synchronized (this) {
+            if (memoryCache.containsKey(key)) {
+                return true;
+            }
+        }
+        return getDiskFile(key).exists();
+    }
+
+    public void put(@NotNull String key, @NotNull CompiledText.CompiledResult result) {
+        putInMemory(key, result);
+        writeToDisk(key, result);
+    }
+
+    public void clear() {
+        synchronized (this) {
+            memoryCache.clear();
+            memorySizes.clear();
+            memoryBytes = 0;
+        }
+        synchronized (diskLock) {
+            listDiskFiles().forEach(file -> file.delete());
+            diskBytes = 0;
+        }
+        memoryHits.set(0);
+        diskHits.set(0);
+        misses.set(0);
+    }
+
+    @NotNull
+    public String getStatistics() {
+        long memory = memoryHits.get();
+        long disk = diskHits.get();
+        long miss = misses.get();
+        long total = memory + disk + miss;
+        int entries;
+        long bytes;
+        synchronized (this) {
+            entries = memoryCache.size();
+            bytes = memoryBytes;
+        }
+        return "Hits: " + (memory + disk) + " of " + total + " (" + (total != 0 ? ((memory + disk) * 100 / total) : 0) + "%)"
+                + "\nMemory hits: " + memory
+                + "\nDisk hits: " + disk
+                + "\nMisses: " + miss
+                + "\nMemory entries: " + entries + " (" + (bytes / 1024) + " KB)"
+                + "\nDisk size: " + (getDiskBytes() / 1024) + " KB";
+    }
+
+    private synchronized void putInMemory(@NotNull String key, @NotNull CompiledText.CompiledResult result) {
+        long size = estimateSize(result);
+        if (size > Constants.COMPILE_CACHE_MEMORY_MAX_BYTES) {
+            return;
+        }
+        Long oldSize = memorySizes.put(key, size);
+        memoryBytes += size - (oldSize != null ? oldSize : 0);
+        memoryCache.put(key, result);
+        Iterator<Map.Entry<String, CompiledText.CompiledResult>> iterator = memoryCache.entrySet().iterator();
+        while (memoryBytes > Constants.COMPILE_CACHE_MEMORY_MAX_BYTES && iterator.hasNext()) {
+            Map.Entry<String, CompiledText.CompiledResult> eldest = iterator.next();
+            Long eldestSize = memorySizes.remove(eldest.getKey());
+            memoryBytes -= (eldestSize != null ? eldestSize : 0);
+            iterator.remove();
+        }
+    }
+
+    @Nullable
+    private CompiledText.CompiledResult readFromDisk(@NotNull String key) {
+        File file = getDiskFile(key);
+        synchronized (diskLock) {
+            if (!file.isFile()) {
+                return null;
+            }
+            try (InputStream stream = new GZIPInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                CompiledText.CompiledResult result = CompiledResultReader.read(stream, () -> {});
+                //noinspection ResultOfMethodCallIgnored
+                file.setLastModified(System.currentTimeMillis());
+                return result;
+            } catch (Exception exception) {
+                deleteDiskFile(file);
+                return null;
+            }
+        }
+    }
+
+    private void writeToDisk(@NotNull String key, @NotNull CompiledText.CompiledResult result) {
+        File file = getDiskFile(key);
+        synchronized (diskLock) {
+            try {
+                Files.createDirectories(diskDirectory);
+                File tempFile = new File(file.getPath() + ".tmp");
+                try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))), StandardCharsets.UTF_8)) {
+                    new Gson().toJson(result, writer);
+                }
+                long oldSize = file.isFile() ? file.length() : 0;
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                diskBytes = getDiskBytes() + file.length() - oldSize;
+                trimDisk();
+            } catch (Exception exception) {
+                // empty
+            }
+        }
+    }
+
+    private void trimDisk() {
+        if (diskBytes <= Constants.COMPILE_CACHE_DISK_MAX_BYTES) {
+            return;
+        }
+        List<File> files = listDiskFiles().stream().sorted(Comparator.comparingLong(File::lastModified)).collect(Collectors.toList());
+        for (File file : files) {
+            if (diskBytes <= Constants.COMPILE_CACHE_DISK_MAX_BYTES) {
+                break;
+            }
+            deleteDiskFile(file);
+        }
+    }
+
+    private void deleteDiskFile(@NotNull File file) {
+        long size = file.length();
+        if (file.delete() && diskBytes >= 0) {
+            diskBytes -= size;
+        }
+    }
+
+    private long getDiskBytes() {
+        synchronized (diskLock) {
+            if (diskBytes < 0) {
+                diskBytes = listDiskFiles().stream().mapToLong(File::length).sum();
+            }
+            return diskBytes;
+        }
+    }
+
+    @NotNull
+    private List<File> listDiskFiles() {
+        File[] files = diskDirectory.toFile().listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+        return files != null ? Arrays.asList(files) : new ArrayList<>();
+    }
+
+    @NotNull
+    private File getDiskFile(@NotNull String key) {
+        return diskDirectory.resolve(key + FILE_SUFFIX).toFile();
+    }
+
+    private static long estimateSize(@NotNull CompiledText.CompiledResult result) {
+        return Stream.of(result.stdout, result.stderr, result.asm)
+                .flatMap(List::stream)
+                .mapToLong(chunk -> CHUNK_OVERHEAD_BYTES + (chunk.text != null ? 2L * chunk.text.length() : 0))
+                .sum();
+    }
+
+    private static void update(@NotNull MessageDigest digest, @Nullable String text) {
+        byte[] bytes = (text != null ? text : "").getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+}
@@ -0,0 +1,244 @@
+package com.compilerexplorer.explorer;
+
+import com.compilerexplorer.common.Constants;
+import com.compilerexplorer.common.PipelineMetrics;
+import com.compilerexplorer.datamodel.CompiledText;
+import com.google.common.net.UrlEscapers;
+import com.google.gson.Gson;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+public class CompileTransport {
+    private static final int COMPRESSION_BUFFER_SIZE = 64 * 1024;
+
+    @NotNull
+    private final Project project;
+    @NotNull
+    private final Set<String> uncompressedUrls = ConcurrentHashMap.newKeySet();
+    @NotNull
+    private final Map<String, InFlightCompile> inFlight = new HashMap<>();
+
+    public static CompileTransport getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, CompileTransport.class);
+    }
+
+    @SuppressWarnings("WeakerAccess")
+    public CompileTransport(@NotNull Project project_) {
+        project = project_;
+    }
+
+    @NotNull
+    public CompletableFuture<CompiledText.CompiledResult> compile(@NotNull String url, @NotNull String remoteCompilerId, @NotNull CompileRequest request, @NotNull String requestKey) {
+        String flightKey = url + " " + requestKey;
+        InFlightCompile flight;
+        synchronized (inFlight) {
+            InFlightCompile existingFlight = inFlight.get(flightKey);
+            if (existingFlight != null) {
+                flight = existingFlight;
+            } else {
+                flight = new InFlightCompile(start(url, remoteCompilerId, request));
+                inFlight.put(flightKey, flight);
+                flight.future.whenComplete((result, throwable) -> {
+                    synchronized (inFlight) {
+                        inFlight.remove(flightKey, flight);
+                    }
+                });
+            }
+            flight.waiters++;
+        }
+
+        CompletableFuture<CompiledText.CompiledResult> waiter = new CompletableFuture<>();
+        flight.future.whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                waiter.completeExceptionally(throwable);
+            } else {
+                waiter.complete(result);
+            }
+        });
+        waiter.whenComplete((result, throwable) -> {
+            if (waiter.isCancelled()) {
+                abandon(flightKey, flight);
+            }
+        });
+        return waiter;
+    }
+
+    private void abandon(@NotNull String flightKey, @NotNull InFlightCompile flight) {
+        synchronized (inFlight) {
+            if (--flight.waiters > 0) {
+                return;
+            }
+        }
+        AppExecutorUtil.getAppScheduledExecutorService().schedule(() -> {
+            synchronized (inFlight) {
+                if (flight.waiters > 0) {
+                    return;
+                }
+                inFlight.remove(flightKey, flight);
+            }
+            flight.future.cancel(true);
+        }, Constants.COMPILE_ABANDON_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @NotNull
+    private CompletableFuture<CompiledText.CompiledResult> start(@NotNull String url, @NotNull String remoteCompilerId, @NotNull CompileRequest request) {
+        AtomicReference<HttpPost> currentRequest = new AtomicReference<>();
+        CompletableFuture<CompiledText.CompiledResult> future = new CompletableFuture<>();
+        future.whenComplete((result, throwable) -> {
+            HttpPost postRequest = currentRequest.get();
+            if (future.isCancelled() && postRequest != null) {
+                postRequest.abort();
+            }
+        });
+        AppExecutorUtil.getAppExecutorService().execute(() -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(route(url, remoteCompilerId, request, currentRequest, future::isCancelled));
+            } catch (Exception exception) {
+                future.completeExceptionally(exception);
+            }
+        });
+        return future;
+    }
+
+    @NotNull
+    private CompiledText.CompiledResult route(@NotNull String url, @NotNull String remoteCompilerId, @NotNull CompileRequest request, @NotNull AtomicReference<HttpPost> currentRequest, @NotNull BooleanSupplier isCanceled) throws Exception {
+        EndpointRouter router = EndpointRouter.getInstance(project);
+        IOException lastException = null;
+        for (String endpoint : router.rank(url)) {
+            HttpPost postRequest = new HttpPost(endpoint + "/api/compiler/" + UrlEscapers.urlPathSegmentEscaper().escape(remoteCompilerId) + "/compile");
+            currentRequest.set(postRequest);
+            checkCanceled(isCanceled);
+            try {
+                CompiledText.CompiledResult result = execute(endpoint, postRequest, request, isCanceled);
+                router.reportSuccess(endpoint);
+                return result;
+            } catch (IOException exception) {
+                checkCanceled(isCanceled);
+                router.reportFailure(endpoint);
+                lastException = exception;
+            }
+        }
+        throw Objects.requireNonNull(lastException);
+    }
+
+    @NotNull
+    private CompiledText.CompiledResult execute(@NotNull String url, @NotNull HttpPost postRequest, @NotNull CompileRequest request, @NotNull BooleanSupplier isCanceled) throws Exception {
+        postRequest.addHeader("accept", "application/json");
+
+        Gson gson = new Gson();
+        boolean compressionRejected = false;
+        PipelineMetrics metrics = PipelineMetrics.getInstance(project);
+        if (shouldCompress(url, request)) {
+            long serializeStartNanos = metrics.start();
+            postRequest.setEntity(createCompressedEntity(gson, request));
+            metrics.stop(PipelineMetrics.Stage.SERIALIZE, serializeStartNanos);
+            CompiledText.CompiledResult result = send(url, postRequest, isCanceled, true);
+            if (result != null) {
+                return result;
+            }
+            compressionRejected = true;
+        }
+
+        long serializeStartNanos = metrics.start();
+        postRequest.setEntity(new StringEntity(gson.toJson(request), ContentType.APPLICATION_JSON));
+        metrics.stop(PipelineMetrics.Stage.SERIALIZE, serializeStartNanos);
+        CompiledText.CompiledResult result = Objects.requireNonNull(send(url, postRequest, isCanceled, false));
+        if (compressionRejected) {
+            uncompressedUrls.add(url);
+        }
+        return result;
+    }
+
+    @Nullable
+    private CompiledText.CompiledResult send(@NotNull String url, @NotNull HttpPost postRequest, @NotNull BooleanSupplier isCanceled, boolean compressed) throws Exception {
+        PipelineMetrics metrics = PipelineMetrics.getInstance(project);
+        long networkStartNanos = metrics.start();
+        try (CloseableHttpResponse response = HttpClientProvider.getInstance(project).getHttpClient().execute(postRequest)) {
+            metrics.stop(PipelineMetrics.Stage.NETWORK, networkStartNanos);
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (compressed && (statusCode == HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE || statusCode == HttpStatus.SC_BAD_REQUEST)) {
+                EntityUtils.consume(response.getEntity());
+                return null;
+            }
+            if (statusCode >= HttpStatus.SC_INTERNAL_SERVER_ERROR) {
+                throw new IOException("Failed : HTTP error code : " + statusCode + " from " + url);
+            }
+            if (statusCode != HttpStatus.SC_OK) {
+                throw new RuntimeException("Failed : HTTP error code : " + statusCode + " from " + url);
+            }
+            HttpEntity entity = response.getEntity();
+            long parseStartNanos = metrics.start();
+            CompiledText.CompiledResult result = CompiledResultReader.read(entity.getContent(), () -> checkCanceled(isCanceled));
+            EntityUtils.consume(entity);
+            metrics.stop(PipelineMetrics.Stage.PARSE, parseStartNanos);
+            return result;
+        }
+    }
+
+    private boolean shouldCompress(@NotNull String url, @NotNull CompileRequest request) {
+        return request.source.length() >= Constants.COMPRESSION_THRESHOLD_CHARS && !uncompressedUrls.contains(url);
+    }
+
+    @NotNull
+    private static HttpEntity createCompressedEntity(@NotNull Gson gson, @NotNull CompileRequest request) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Writer writer = new OutputStreamWriter(new FastGZIPOutputStream(bytes), StandardCharsets.UTF_8)) {
+            gson.toJson(request, writer);
+        }
+        ByteArrayEntity entity = new ByteArrayEntity(bytes.toByteArray(), ContentType.APPLICATION_JSON);
+        entity.setContentEncoding("gzip");
+        return entity;
+    }
+
+    private static void checkCanceled(@NotNull BooleanSupplier isCanceled) {
+        if (isCanceled.getAsBoolean()) {
+            throw new CancellationException();
+        }
+    }
+
+    private static class InFlightCompile {
+        @NotNull
+        final CompletableFuture<CompiledText.CompiledResult> future;
+        int waiters;
+
+        InFlightCompile(@NotNull CompletableFuture<CompiledText.CompiledResult> future_) {
+            future = future_;
+        }
+    }
+
+    private static class FastGZIPOutputStream extends GZIPOutputStream {
+        FastGZIPOutputStream(@NotNull OutputStream stream) throws IOException {
+            super(stream, COMPRESSION_BUFFER_SIZE);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.compilerexplorer.explorer;
+
+import com.compilerexplorer.datamodel.CompiledText;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CompiledResultReader {
+    @NotNull
+    private final JsonReader reader;
+    @NotNull
+    private final Runnable cancelChecker;
+
+    private CompiledResultReader(@NotNull InputStream stream, @NotNull Runnable cancelChecker_) {
+        reader = new JsonReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        cancelChecker = cancelChecker_;
+    }
+
+    @NotNull
+    public static CompiledText.CompiledResult read(@NotNull InputStream stream, @NotNull Runnable cancelChecker) throws IOException {
+        return new CompiledResultReader(stream, cancelChecker).readResult();
+    }
+
+    @NotNull
+    private CompiledText.CompiledResult readResult() throws IOException {
+        CompiledText.CompiledResult result = new CompiledText.CompiledResult();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "code":
+                    result.code = readInt(0);
+                    break;
+                case "stdout":
+                    result.stdout = readChunks();
+                    break;
+                case "stderr":
+                    result.stderr = readChunks();
+                    break;
+                case "asm":
+                    result.asm = readChunks();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+            cancelChecker.run();
+        }
+        reader.endObject();
+        result.stdout = orEmpty(result.stdout);
+        result.stderr = orEmpty(result.stderr);
+        result.asm = orEmpty(result.asm);
+        return result;
+    }
+
+    @Nullable
+    private List<CompiledText.CompiledChunk> readChunks() throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return null;
+        }
+        List<CompiledText.CompiledChunk> chunks = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            cancelChecker.run();
+            if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                chunks.add(readChunk());
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endArray();
+        return chunks;
+    }
+
+    @NotNull
+    private CompiledText.CompiledChunk readChunk() throws IOException {
+        CompiledText.CompiledChunk chunk = new CompiledText.CompiledChunk();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "text":
+                    chunk.text = readString();
+                    break;
+                case "source":
+                    chunk.source = readSource();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return chunk;
+    }
+
+    @Nullable
+    private CompiledText.SourceLocation readSource() throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+        String file = null;
+        int line = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "file":
+                    file = readString();
+                    break;
+                case "line":
+                    line = readInt(0);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new CompiledText.SourceLocation(file, line);
+    }
+
+    @Nullable
+    private String readString() throws IOException {
+        if (reader.peek() == JsonToken.STRING || reader.peek() == JsonToken.NUMBER) {
+            return reader.nextString();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    private int readInt(int defaultValue) throws IOException {
+        if (reader.peek() == JsonToken.NUMBER) {
+            return (int) reader.nextLong();
+        }
+        reader.skipValue();
+        return defaultValue;
+    }
+
+    @NotNull
+    private static List<CompiledText.CompiledChunk> orEmpty(@Nullable List<CompiledText.CompiledChunk> chunks) {
+        return chunks != null ? chunks : new ArrayList<>();
+    }
+}
@@ -0,0 +1,156 @@
+package com.compilerexplorer.explorer;
+
+import com.compilerexplorer.common.Constants;
+import com.compilerexplorer.datamodel.state.RemoteCompilerInfo;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.components.ServiceManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class CompilerCatalogCache {
+    private static final String FILE_SUFFIX = ".json.gz";
+
+    public static class Catalog {
+        @NotNull
+        private final List<RemoteCompilerInfo> compilers;
+        @NotNull
+        private final String etag;
+        @NotNull
+        private final String lastModified;
+
+        public Catalog(@NotNull List<RemoteCompilerInfo> compilers_, @NotNull String etag_, @NotNull String lastModified_) {
+            compilers = compilers_;
+            etag = etag_;
+            lastModified = lastModified_;
+        }
+
+        @NotNull
+        public List<RemoteCompilerInfo> getCompilers() {
+            return compilers;
+        }
+
+        @NotNull
+        public String getEtag() {
+            return etag;
+        }
+
+        @NotNull
+        public String getLastModified() {
+            return lastModified;
+        }
+    }
+
+    @NotNull
+    private final Path diskDirectory;
+    @NotNull
+    private final Object diskLock = new Object();
+
+    public static CompilerCatalogCache getInstance() {
+        return ServiceManager.getService(CompilerCatalogCache.class);
+    }
+
+    @SuppressWarnings("WeakerAccess")
+    public CompilerCatalogCache() {
+        diskDirectory = Paths.get(PathManager.getSystemPath(), Constants.CATALOG_CACHE_DIRECTORY);
+    }
+
+    @Nullable
+    public Catalog get(@NotNull String url) {
+        File file = getDiskFile(url);
+        synchronized (diskLock) {
+            if (!file.isFile()) {
+                return null;
+            }
+            try (JsonReader reader = new JsonReader(new InputStreamReader(new GZIPInputStream(new BufferedInputStream(new FileInputStream(file))), StandardCharsets.UTF_8))) {
+                return readCatalog(reader);
+            } catch (Exception exception) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+                return null;
+            }
+        }
+    }
+
+    public void put(@NotNull String url, @NotNull Catalog catalog) {
+        File file = getDiskFile(url);
+        synchronized (diskLock) {
+            try {
+                Files.createDirectories(diskDirectory);
+                File tempFile = new File(file.getPath() + ".tmp");
+                try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))), StandardCharsets.UTF_8))) {
+                    writeCatalog(writer, catalog);
+                }
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (Exception exception) {
+                // empty
+            }
+        }
+    }
+
+    @NotNull
+    private static Catalog readCatalog(@NotNull JsonReader reader) throws IOException {
+        List<RemoteCompilerInfo> compilers = new ArrayList<>();
+        String etag = "";
+        String lastModified = "";
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "etag":
+                    etag = reader.nextString();
+                    break;
+                case "lastModified":
+                    lastModified = reader.nextString();
+                    break;
+                case "compilers":
+                    compilers = RemoteCompilersReader.read(reader, () -> {});
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new Catalog(compilers, etag, lastModified);
+    }
+
+    private static void writeCatalog(@NotNull JsonWriter writer, @NotNull Catalog catalog) throws IOException {
+        Gson gson = new Gson();
+        writer.beginObject();
+        writer.name("etag").value(catalog.getEtag());
+        writer.name("lastModified").value(catalog.getLastModified());
+        writer.name("compilers").beginArray();
+        for (RemoteCompilerInfo compiler : catalog.getCompilers()) {
+            gson.toJson(compiler, RemoteCompilerInfo.class, writer);
+        }
+        writer.endArray();
+        writer.endObject();
+    }
+
+    @NotNull
+    private File getDiskFile(@NotNull String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            StringBuilder builder = new StringBuilder();
+            for (byte b : digest.digest(url.getBytes(StandardCharsets.UTF_8))) {
+                builder.append(String.format("%02x", b));
+            }
+            return diskDirectory.resolve(builder.toString() + FILE_SUFFIX).toFile();
+        } catch (Exception exception) {
+            throw new RuntimeException("Cannot hash catalog url: " + exception.getMessage());
+        }
+    }
+}
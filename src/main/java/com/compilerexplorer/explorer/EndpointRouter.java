@@ -0,0 +1,140 @@
+package com.compilerexplorer.explorer;
+
+import com.compilerexplorer.common.CompilerExplorerSettingsProvider;
+import com.compilerexplorer.common.Constants;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public class EndpointRouter implements Disposable {
+    private static class EndpointStatus {
+        volatile boolean healthy = true;
+        volatile double latencyMillis = -1;
+    }
+
+    @NotNull
+    private final Project project;
+    @NotNull
+    private final Map<String, EndpointStatus> statuses = new ConcurrentHashMap<>();
+    @Nullable
+    private ScheduledFuture<?> healthChecks;
+
+    public static EndpointRouter getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, EndpointRouter.class);
+    }
+
+    @SuppressWarnings("WeakerAccess")
+    public EndpointRouter(@NotNull Project project_) {
+        project = project_;
+    }
+
+    @NotNull
+    public List<String> getEndpoints(@NotNull String url) {
+        Set<String> endpoints = new LinkedHashSet<>();
+        endpoints.add(url);
+        Arrays.stream(CompilerExplorerSettingsProvider.getInstance(project).getState().getReplicaUrls().split(" "))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .forEach(endpoints::add);
+        return new ArrayList<>(endpoints);
+    }
+
+    @NotNull
+    public List<String> rank(@NotNull String url) {
+        List<String> endpoints = getEndpoints(url);
+        if (endpoints.size() > 1) {
+            startHealthChecks();
+        }
+        endpoints.sort(Comparator.comparing((String endpoint) -> !getStatus(endpoint).healthy)
+                .thenComparingDouble(endpoint -> getStatus(endpoint).latencyMillis >= 0 ? getStatus(endpoint).latencyMillis : Double.MAX_VALUE));
+        return endpoints;
+    }
+
+    public void reportSuccess(@NotNull String endpoint) {
+        getStatus(endpoint).healthy = true;
+    }
+
+    public void reportFailure(@NotNull String endpoint) {
+        getStatus(endpoint).healthy = false;
+    }
+
+    @NotNull
+    public String getStatistics(@NotNull String url) {
+        StringBuilder builder = new StringBuilder();
+        for (String endpoint : getEndpoints(url)) {
+            EndpointStatus status = getStatus(endpoint);
+            builder.append(endpoint)
+                    .append(": ")
+                    .append(status.healthy ? "healthy" : "unavailable")
+                    .append(status.latencyMillis >= 0 ? ", " + Math.round(status.latencyMillis) + " ms" : "")
+                    .append("\n");
+        }
+        return builder.toString();
+    }
+
+    @NotNull
+    private EndpointStatus getStatus(@NotNull String endpoint) {
+        return statuses.computeIfAbsent(endpoint, unused -> new EndpointStatus());
+    }
+
+    private synchronized void startHealthChecks() {
+        if (healthChecks == null) {
+            healthChecks = AppExecutorUtil.getAppScheduledExecutorService().scheduleWithFixedDelay(this::checkHealth,
+                    0, Constants.ENDPOINT_HEALTH_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void checkHealth() {
+        List<String> endpoints = getEndpoints(CompilerExplorerSettingsProvider.getInstance(project).getState().getUrl());
+        statuses.keySet().retainAll(endpoints);
+        if (endpoints.size() <= 1) {
+            return;
+        }
+        endpoints.forEach(endpoint -> ApplicationManager.getApplication().executeOnPooledThread(() -> checkHealth(endpoint)));
+    }
+
+    private void checkHealth(@NotNull String endpoint) {
+        HttpGet getRequest = new HttpGet(endpoint + "/healthcheck");
+        getRequest.setConfig(RequestConfig.custom()
+                .setConnectTimeout(Constants.ENDPOINT_HEALTH_CHECK_TIMEOUT_MILLIS)
+                .setConnectionRequestTimeout(Constants.ENDPOINT_HEALTH_CHECK_TIMEOUT_MILLIS)
+                .setSocketTimeout(Constants.ENDPOINT_HEALTH_CHECK_TIMEOUT_MILLIS)
+                .build());
+        EndpointStatus status = getStatus(endpoint);
+        long startNanos = System.nanoTime();
+        try (CloseableHttpResponse response = HttpClientProvider.getInstance(project).getHttpClient().execute(getRequest)) {
+            EntityUtils.consume(response.getEntity());
+            double latencyMillis = (System.nanoTime() - startNanos) / 1e6;
+            status.healthy = response.getStatusLine().getStatusCode() == HttpStatus.SC_OK;
+            if (status.healthy) {
+                status.latencyMillis = status.latencyMillis >= 0
+                        ? status.latencyMillis + Constants.ENDPOINT_LATENCY_SMOOTHING * (latencyMillis - status.latencyMillis)
+                        : latencyMillis;
+            }
+        } catch (Exception exception) {
+            status.healthy = false;
+        }
+    }
+
+    @Override
+    public synchronized void dispose() {
+        if (healthChecks != null) {
+            healthChecks.cancel(false);
+            healthChecks = null;
+        }
+    }
+}
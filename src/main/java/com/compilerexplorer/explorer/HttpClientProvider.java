@@ -0,0 +1,89 @@
+package com.compilerexplorer.explorer;
+
+import com.compilerexplorer.common.CompilerExplorerSettingsProvider;
+import com.compilerexplorer.common.Constants;
+import com.compilerexplorer.datamodel.state.SettingsState;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
+public class HttpClientProvider implements Disposable {
+    @NotNull
+    private final Project project;
+    @NotNull
+    private final PoolingHttpClientConnectionManager connectionManager;
+    @NotNull
+    private final CloseableHttpClient httpClient;
+
+    public static HttpClientProvider getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, HttpClientProvider.class);
+    }
+
+    @SuppressWarnings("WeakerAccess")
+    public HttpClientProvider(@NotNull Project project_) {
+        project = project_;
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setValidateAfterInactivity(Constants.HTTP_VALIDATE_AFTER_INACTIVITY_MILLIS);
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy((response, context) -> {
+                    long keepAliveMillis = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return keepAliveMillis > 0 ? Math.min(keepAliveMillis, Constants.HTTP_IDLE_CONNECTION_TIMEOUT_MILLIS) : Constants.HTTP_IDLE_CONNECTION_TIMEOUT_MILLIS;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(Constants.HTTP_IDLE_CONNECTION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                .build();
+        updatePoolLimits();
+    }
+
+    @NotNull
+    public CloseableHttpClient getHttpClient() {
+        updatePoolLimits();
+        return httpClient;
+    }
+
+    public void prewarm(@NotNull String url) {
+        CloseableHttpClient client = getHttpClient();
+        int connections = Math.min(Constants.HTTP_PREWARM_CONNECTIONS, connectionManager.getDefaultMaxPerRoute());
+        for (int i = 0; i < connections; ++i) {
+            ApplicationManager.getApplication().executeOnPooledThread(() -> {
+                try (CloseableHttpResponse ignored = client.execute(new HttpHead(url))) {
+                    // empty
+                } catch (Exception exception) {
+                    // empty
+                }
+            });
+        }
+    }
+
+    private void updatePoolLimits() {
+        SettingsState state = CompilerExplorerSettingsProvider.getInstance(project).getState();
+        int maxConnections = Math.max(1, state.getHttpMaxConnections());
+        int maxConnectionsPerRoute = Math.max(1, Math.min(maxConnections, state.getHttpMaxConnectionsPerRoute()));
+        if (connectionManager.getMaxTotal() != maxConnections) {
+            connectionManager.setMaxTotal(maxConnections);
+        }
+        if (connectionManager.getDefaultMaxPerRoute() != maxConnectionsPerRoute) {
+            connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        try {
+            httpClient.close();
+        } catch (Exception exception) {
+            // empty
+        }
+    }
+}
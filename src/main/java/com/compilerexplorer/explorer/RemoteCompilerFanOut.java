@@ -0,0 +1,188 @@
+package com.compilerexplorer.explorer;
+
+import com.compilerexplorer.common.CompilerExplorerSettingsProvider;
+import com.compilerexplorer.datamodel.CompiledText;
+import com.compilerexplorer.datamodel.PreprocessedSource;
+import com.compilerexplorer.datamodel.SourceSettings;
+import com.compilerexplorer.datamodel.state.CompilerMatch;
+import com.compilerexplorer.datamodel.state.Filters;
+import com.compilerexplorer.datamodel.state.SettingsState;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+public class RemoteCompilerFanOut {
+    public static class Result {
+        @NotNull
+        private final CompilerMatch compilerMatch;
+        @Nullable
+        private final CompiledText.CompiledResult compiledResult;
+        @Nullable
+        private final String error;
+        private final long latencyMillis;
+        private final boolean cached;
+
+        Result(@NotNull CompilerMatch compilerMatch_, @Nullable CompiledText.CompiledResult compiledResult_, @Nullable String error_, long latencyMillis_, boolean cached_) {
+            compilerMatch = compilerMatch_;
+            compiledResult = compiledResult_;
+            error = error_;
+            latencyMillis = latencyMillis_;
+            cached = cached_;
+        }
+
+        @NotNull
+        public CompilerMatch getCompilerMatch() {
+            return compilerMatch;
+        }
+
+        @Nullable
+        public CompiledText.CompiledResult getCompiledResult() {
+            return compiledResult;
+        }
+
+        @Nullable
+        public String getError() {
+            return error;
+        }
+
+        public long getLatencyMillis() {
+            return latencyMillis;
+        }
+
+        public boolean isCached() {
+            return cached;
+        }
+    }
+
+    @NotNull
+    private final Project project;
+    @NotNull
+    private final Consumer<Result> resultConsumer;
+    @NotNull
+    private final Deque<CompilerMatch> pending = new ArrayDeque<>();
+    @NotNull
+    private final Set<CompletableFuture<CompiledText.CompiledResult>> running = new HashSet<>();
+    private int active;
+    private int parallelism;
+    private long generation;
+
+    public RemoteCompilerFanOut(@NotNull Project project_, @NotNull Consumer<Result> resultConsumer_) {
+        project = project_;
+        resultConsumer = resultConsumer_;
+    }
+
+    public void compile(@NotNull PreprocessedSource preprocessedSource, @NotNull List<CompilerMatch> compilerMatches) {
+        SettingsState state = CompilerExplorerSettingsProvider.getInstance(project).getState();
+        SourceSettings sourceSettings = preprocessedSource.getSourceRemoteMatched().getSourceCompilerSettings().getSourceSettings();
+        String url = state.getUrl();
+        String switches = RemoteCompiler.getCompilerOptions(sourceSettings, state.getAdditionalSwitches(), state.getIgnoreSwitches());
+        CompileRequest request = new CompileRequest(preprocessedSource.getPreprocessedText(), switches, new Filters(state.getFilters()));
+
+        long currentGeneration;
+        synchronized (this) {
+            cancelRunning();
+            currentGeneration = generation;
+            pending.addAll(compilerMatches);
+            parallelism = Math.max(1, state.getCompareParallelism());
+        }
+        launchPending(currentGeneration, url, request);
+    }
+
+    public void cancel() {
+        synchronized (this) {
+            cancelRunning();
+        }
+    }
+
+    private void cancelRunning() {
+        ++generation;
+        pending.clear();
+        active = 0;
+        new ArrayList<>(running).forEach(future -> future.cancel(true));
+        running.clear();
+    }
+
+    private void launchPending(long launchGeneration, @NotNull String url, @NotNull CompileRequest request) {
+        List<CompilerMatch> toLaunch = new ArrayList<>();
+        synchronized (this) {
+            while (launchGeneration == generation && active < parallelism && !pending.isEmpty()) {
+                ++active;
+                toLaunch.add(pending.poll());
+            }
+        }
+        toLaunch.forEach(compilerMatch -> AppExecutorUtil.getAppExecutorService().execute(() -> launch(launchGeneration, url, request, compilerMatch)));
+    }
+
+    private void launch(long launchGeneration, @NotNull String url, @NotNull CompileRequest request, @NotNull CompilerMatch compilerMatch) {
+        long startNanos = System.nanoTime();
+        String remoteCompilerId = compilerMatch.getRemoteCompilerInfo().getId();
+        CompileResultCache cache = CompileResultCache.getInstance();
+        String cacheKey;
+        CompletableFuture<CompiledText.CompiledResult> future;
+        try {
+            cacheKey = CompileResultCache.getKey(url, remoteCompilerId, request);
+            CompiledText.CompiledResult cachedResult = cache.get(cacheKey);
+            if (cachedResult != null) {
+                finish(launchGeneration, url, request, new Result(compilerMatch, cachedResult, null, elapsedMillis(startNanos), true));
+                return;
+            }
+            future = CompileTransport.getInstance(project).compile(url, remoteCompilerId, request, cacheKey);
+        } catch (Exception exception) {
+            finish(launchGeneration, url, request, new Result(compilerMatch, null, String.valueOf(exception.getMessage()), elapsedMillis(startNanos), false));
+            return;
+        }
+
+        synchronized (this) {
+            if (launchGeneration != generation) {
+                future.cancel(true);
+                return;
+            }
+            running.add(future);
+        }
+        future.whenComplete((compiledResult, throwable) -> {
+            synchronized (this) {
+                running.remove(future);
+            }
+            if (future.isCancelled()) {
+                return;
+            }
+            if (throwable != null) {
+                finish(launchGeneration, url, request, new Result(compilerMatch, null, String.valueOf(throwable.getMessage()), elapsedMillis(startNanos), false));
+            } else {
+                if (CompileResultCache.isCacheable(request, compiledResult)) {
+                    cache.put(cacheKey, compiledResult);
+                }
+                finish(launchGeneration, url, request, new Result(compilerMatch, compiledResult, null, elapsedMillis(startNanos), false));
+            }
+        });
+    }
+
+    private void finish(long launchGeneration, @NotNull String url, @NotNull CompileRequest request, @NotNull Result result) {
+        synchronized (this) {
+            if (launchGeneration != generation) {
+                return;
+            }
+            --active;
+        }
+        ApplicationManager.getApplication().invokeLater(() -> {
+            synchronized (this) {
+                if (launchGeneration != generation) {
+                    return;
+                }
+            }
+            resultConsumer.accept(result);
+        });
+        launchPending(launchGeneration, url, request);
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
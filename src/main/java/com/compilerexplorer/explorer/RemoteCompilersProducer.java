@@ -1,33 +1,34 @@
 package com.compilerexplorer.explorer;
 
 import com.compilerexplorer.common.Constants;
+import com.compilerexplorer.common.PipelineMetrics;
 import com.compilerexplorer.common.RefreshSignal;
 import com.compilerexplorer.common.TaskRunner;
+import com.compilerexplorer.datamodel.ProjectSettings;
 import com.compilerexplorer.datamodel.state.RemoteCompilerInfo;
 import com.compilerexplorer.datamodel.state.SettingsState;
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParser;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
-import org.apache.http.HttpResponse;
+import org.apache.http.Header;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.util.*;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 public class RemoteCompilersProducer<T> implements Consumer<T> {
+    private static final String ALL_LANGUAGES = "";
+    private static final String CATALOG_FIELDS = "id,name,lang,version";
+
     @NotNull
     private final Project project;
     @NotNull
@@ -38,6 +39,12 @@ public class RemoteCompilersProducer<T> implements Consumer<T> {
     private final Consumer<Error> errorConsumer;
     @NotNull
     private final TaskRunner taskRunner;
+    @NotNull
+    private final TaskRunner revalidationTaskRunner;
+    @NotNull
+    private final Set<String> languages = new TreeSet<>();
+    @NotNull
+    private final Map<String, List<RemoteCompilerInfo>> catalogs = new LinkedHashMap<>();
     @Nullable
     private T lastT;
 
@@ -51,6 +58,7 @@ public class RemoteCompilersProducer<T> implements Consumer<T> {
         consumer = consumer_;
         errorConsumer = errorConsumer_;
         taskRunner = taskRunner_;
+        revalidationTaskRunner = new TaskRunner();
     }
 
     @Override
@@ -61,7 +69,12 @@ public class RemoteCompilersProducer<T> implements Consumer<T> {
             return;
         }
 
-        if (state.getConnected()) {
+        if (state.getConnected() && catalogs.isEmpty()) {
+            state.getRemoteCompilers().forEach(compiler -> catalogs.computeIfAbsent(compiler.getLanguage().toLowerCase(), language -> new ArrayList<>()).add(compiler));
+        }
+
+        List<String> missingLanguages = findMissingLanguages();
+        if (state.getConnected() && missingLanguages.isEmpty()) {
             consumer.accept(t);
             return;
         }
@@ -70,37 +83,34 @@ public class RemoteCompilersProducer<T> implements Consumer<T> {
         taskRunner.runTask(new Task.Backgroundable(project, Constants.PROJECT_TITLE + ": connecting to " + url) {
             @Override
             public void run(@NotNull ProgressIndicator indicator) {
-                String endpoint = url + "/api/compilers";
                 try {
-                    CloseableHttpClient httpClient = HttpClients.createDefault();
-                    HttpGet getRequest = new HttpGet(endpoint);
-                    getRequest.addHeader("accept", "application/json");
-                    HttpResponse response = httpClient.execute(getRequest);
-                    if (response.getStatusLine().getStatusCode() != 200) {
-                        httpClient.close();
-                        throw new RuntimeException("Failed : HTTP error code : " + response.getStatusLine().getStatusCode() + " from " + url);
-                    }
-                    BufferedReader br = new BufferedReader(new InputStreamReader(response.getEntity().getContent()));
-                    String output = "";
-                    String line;
-                    while ((line = br.readLine()) != null) {
+                    Map<String, CompilerCatalogCache.Catalog> cachedCatalogs = new LinkedHashMap<>();
+                    Map<String, CompilerCatalogCache.Catalog> loadedCatalogs = new LinkedHashMap<>();
+                    for (String language : missingLanguages) {
+                        CompilerCatalogCache.Catalog cachedCatalog = CompilerCatalogCache.getInstance().get(getCacheKey(url, language));
                         indicator.checkCanceled();
-                        output = output.concat(line);
-                    }
-                    httpClient.close();
-                    indicator.checkCanceled();
-
-                    JsonArray array = new JsonParser().parse(output).getAsJsonArray();
-                    Gson gson = new Gson();
-                    List<RemoteCompilerInfo> compilers = new ArrayList<>();
-                    for (JsonElement elem : array) {
-                        compilers.add(gson.fromJson(elem, RemoteCompilerInfo.class));
+                        if (cachedCatalog != null) {
+                            cachedCatalogs.put(language, cachedCatalog);
+                            loadedCatalogs.put(language, cachedCatalog);
+                            continue;
+                        }
+                        CompilerCatalogCache.Catalog catalog = fetch(url, language, null, indicator);
+                        if (catalog == null) {
+                            throw new RuntimeException("Unexpected empty response from " + url);
+                        }
+                        loadedCatalogs.put(language, catalog);
                     }
-                    indicator.checkCanceled();
                     ApplicationManager.getApplication().invokeLater(() -> {
-                        state.setRemoteCompilers(compilers);
+                        if (!state.getUrl().equals(url)) {
+                            return;
+                        }
+                        loadedCatalogs.forEach((language, catalog) -> catalogs.put(language, catalog.getCompilers()));
+                        publishCatalogs();
                         state.setConnected(true);
                         consumer.accept(t);
+                        if (!cachedCatalogs.isEmpty()) {
+                            revalidate(url, cachedCatalogs);
+                        }
                     });
                 } catch (ProcessCanceledException canceledException) {
                     //errorLater("Canceled reading from " + url);
@@ -111,9 +121,122 @@ public class RemoteCompilersProducer<T> implements Consumer<T> {
         });
     }
 
+    @NotNull
+    public Consumer<ProjectSettings> asProjectSettingsConsumer() {
+        return projectSettings -> {
+            languages.clear();
+            projectSettings.getSettings().forEach(sourceSettings -> languages.add(sourceSettings.getLanguage().toLowerCase()));
+        };
+    }
+
+    @NotNull
+    private List<String> findMissingLanguages() {
+        if (catalogs.containsKey(ALL_LANGUAGES)) {
+            return new ArrayList<>();
+        }
+        if (languages.isEmpty()) {
+            return catalogs.isEmpty() ? Collections.singletonList(ALL_LANGUAGES) : new ArrayList<>();
+        }
+        return languages.stream().filter(language -> !catalogs.containsKey(language)).collect(Collectors.toList());
+    }
+
+    private void publishCatalogs() {
+        List<RemoteCompilerInfo> compilers = new ArrayList<>();
+        catalogs.values().forEach(compilers::addAll);
+        state.setRemoteCompilers(compilers);
+    }
+
+    private void revalidate(@NotNull String url, @NotNull Map<String, CompilerCatalogCache.Catalog> cachedCatalogs) {
+        revalidationTaskRunner.runTask(new Task.Backgroundable(project, Constants.PROJECT_TITLE + ": revalidating compilers from " + url) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                Map<String, CompilerCatalogCache.Catalog> changedCatalogs = new LinkedHashMap<>();
+                try {
+                    for (Map.Entry<String, CompilerCatalogCache.Catalog> entry : cachedCatalogs.entrySet()) {
+                        try {
+                            CompilerCatalogCache.Catalog catalog = fetch(url, entry.getKey(), entry.getValue(), indicator);
+                            if (catalog != null && !catalog.getCompilers().equals(entry.getValue().getCompilers())) {
+                                changedCatalogs.put(entry.getKey(), catalog);
+                            }
+                        } catch (ProcessCanceledException canceledException) {
+                            throw canceledException;
+                        } catch (Exception e) {
+                            // empty
+                        }
+                    }
+                } catch (ProcessCanceledException canceledException) {
+                    //errorLater("Canceled revalidating " + url);
+                    return;
+                }
+                if (changedCatalogs.isEmpty()) {
+                    return;
+                }
+                ApplicationManager.getApplication().invokeLater(() -> {
+                    if (!state.getConnected() || !state.getUrl().equals(url)) {
+                        return;
+                    }
+                    changedCatalogs.forEach((language, catalog) -> catalogs.put(language, catalog.getCompilers()));
+                    publishCatalogs();
+                    refresh();
+                });
+            }
+        });
+    }
+
+    @Nullable
+    private CompilerCatalogCache.Catalog fetch(@NotNull String url, @NotNull String language, @Nullable CompilerCatalogCache.Catalog cachedCatalog, @NotNull ProgressIndicator indicator) throws Exception {
+        String endpoint = url + "/api/compilers" + (language.equals(ALL_LANGUAGES) ? "" : "/" + URLEncoder.encode(language, "UTF-8")) + "?fields=" + CATALOG_FIELDS;
+        long catalogStartNanos = PipelineMetrics.getInstance(project).start();
+        CloseableHttpClient httpClient = HttpClientProvider.getInstance(project).getHttpClient();
+        HttpGet getRequest = new HttpGet(endpoint);
+        getRequest.addHeader("accept", "application/json");
+        if (cachedCatalog != null && !cachedCatalog.getEtag().isEmpty()) {
+            getRequest.addHeader("If-None-Match", cachedCatalog.getEtag());
+        }
+        if (cachedCatalog != null && !cachedCatalog.getLastModified().isEmpty()) {
+            getRequest.addHeader("If-Modified-Since", cachedCatalog.getLastModified());
+        }
+        CompilerCatalogCache.Catalog catalog;
+        try (CloseableHttpResponse response = httpClient.execute(getRequest)) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode == 304 && cachedCatalog != null) {
+                PipelineMetrics.getInstance(project).stop(PipelineMetrics.Stage.CATALOG, catalogStartNanos);
+                return null;
+            }
+            List<RemoteCompilerInfo> compilers;
+            if (statusCode == 404 && !language.equals(ALL_LANGUAGES)) {
+                compilers = new ArrayList<>();
+            } else if (statusCode != 200) {
+                throw new RuntimeException("Failed : HTTP error code : " + statusCode + " from " + url);
+            } else {
+                try (InputStream stream = response.getEntity().getContent()) {
+                    compilers = RemoteCompilersReader.read(stream, indicator::checkCanceled);
+                }
+            }
+            catalog = new CompilerCatalogCache.Catalog(compilers, getHeader(response, "ETag"), getHeader(response, "Last-Modified"));
+        }
+        indicator.checkCanceled();
+        CompilerCatalogCache.getInstance().put(getCacheKey(url, language), catalog);
+        PipelineMetrics.getInstance(project).stop(PipelineMetrics.Stage.CATALOG, catalogStartNanos);
+        return catalog;
+    }
+
+    @NotNull
+    private static String getCacheKey(@NotNull String url, @NotNull String language) {
+        return url + " " + language + " " + CATALOG_FIELDS;
+    }
+
+    @NotNull
+    private static String getHeader(@NotNull CloseableHttpResponse response, @NotNull String name) {
+        Header header = response.getFirstHeader(name);
+        return header != null && header.getValue() != null ? header.getValue() : "";
+    }
+
     @NotNull
     public Consumer<RefreshSignal> asRefreshSignalConsumer() {
         return refreshSignal -> {
+            revalidationTaskRunner.reset();
+            catalogs.clear();
             state.setConnected(SettingsState.EMPTY.getConnected());
             state.setRemoteCompilers(SettingsState.EMPTY.getRemoteCompilers());
         };
@@ -0,0 +1,54 @@
+package com.compilerexplorer.explorer;
+
+import com.compilerexplorer.datamodel.state.RemoteCompilerInfo;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class RemoteCompilersReader {
+    @NotNull
+    private final JsonReader reader;
+    @NotNull
+    private final Runnable cancelChecker;
+    @NotNull
+    private final Gson gson = new Gson();
+
+    private RemoteCompilersReader(@NotNull JsonReader reader_, @NotNull Runnable cancelChecker_) {
+        reader = reader_;
+        cancelChecker = cancelChecker_;
+    }
+
+    @NotNull
+    public static List<RemoteCompilerInfo> read(@NotNull InputStream stream, @NotNull Runnable cancelChecker) throws IOException {
+        return read(new JsonReader(new InputStreamReader(stream, StandardCharsets.UTF_8)), cancelChecker);
+    }
+
+    @NotNull
+    public static List<RemoteCompilerInfo> read(@NotNull JsonReader reader, @NotNull Runnable cancelChecker) throws IOException {
+        return new RemoteCompilersReader(reader, cancelChecker).readCompilers();
+    }
+
+    @NotNull
+    private List<RemoteCompilerInfo> readCompilers() throws IOException {
+        List<RemoteCompilerInfo> compilers = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            cancelChecker.run();
+            if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                compilers.add(gson.fromJson(reader, RemoteCompilerInfo.class));
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endArray();
+        return compilers;
+    }
+}
@@ -0,0 +1,166 @@
+package com.compilerexplorer.gui;
+
+import com.compilerexplorer.common.Constants;
+import com.compilerexplorer.datamodel.CompiledText;
+import com.compilerexplorer.datamodel.PreprocessedSource;
+import com.compilerexplorer.datamodel.state.CompilerMatch;
+import com.compilerexplorer.datamodel.state.CompilerMatchKind;
+import com.compilerexplorer.explorer.RemoteCompilerFanOut;
+import com.intellij.openapi.editor.EditorFactory;
+import com.intellij.openapi.editor.ex.EditorEx;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.ui.CheckBoxList;
+import com.intellij.ui.EditorTextField;
+import com.intellij.ui.JBSplitter;
+import com.intellij.ui.components.JBScrollPane;
+import com.jetbrains.cidr.lang.asm.AsmFileType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+public class CompareCompilersDialog extends DialogWrapper {
+    private static final int GAP = 2;
+
+    private static class ResultView {
+        @NotNull
+        private final JLabel label;
+        @NotNull
+        private final EditorTextField editor;
+
+        ResultView(@NotNull JLabel label_, @NotNull EditorTextField editor_) {
+            label = label_;
+            editor = editor_;
+        }
+    }
+
+    @NotNull
+    private final Project project;
+    @NotNull
+    private final PreprocessedSource preprocessedSource;
+    @NotNull
+    private final List<CompilerMatch> compilerMatches;
+    @NotNull
+    private final CheckBoxList<CompilerMatch> compilersList;
+    @NotNull
+    private final JPanel resultsPanel;
+    @NotNull
+    private final Map<String, ResultView> resultViews;
+    @NotNull
+    private final RemoteCompilerFanOut fanOut;
+
+    public CompareCompilersDialog(@NotNull Project project_, @NotNull PreprocessedSource preprocessedSource_) {
+        super(project_, false);
+        project = project_;
+        preprocessedSource = preprocessedSource_;
+        compilerMatches = preprocessedSource.getSourceRemoteMatched().getRemoteCompilerMatches().getOtherMatches();
+        String chosenId = preprocessedSource.getSourceRemoteMatched().getRemoteCompilerMatches().getChosenMatch().getRemoteCompilerInfo().getId();
+        compilersList = new CheckBoxList<>();
+        compilerMatches.forEach(match -> compilersList.addItem(match, getMatchText(match),
+                match.getRemoteCompilerInfo().getId().equals(chosenId) || match.getCompilerMatchKind() != CompilerMatchKind.NO_MATCH));
+        resultsPanel = new JPanel(new GridLayout(1, 0, GAP, GAP));
+        resultViews = new HashMap<>();
+        fanOut = new RemoteCompilerFanOut(project, this::showResult);
+        setModal(false);
+        setTitle(Constants.PROJECT_TITLE + ": Compare Compilers for " + preprocessedSource.getSourceRemoteMatched().getSourceCompilerSettings().getSourceSettings().getSourceName());
+        init();
+    }
+
+    @Override
+    @Nullable
+    protected JComponent createCenterPanel() {
+        JPanel compilersPanel = new JPanel(new BorderLayout(GAP, GAP));
+        compilersPanel.add(new JBScrollPane(compilersList), BorderLayout.CENTER);
+        JButton compileButton = new JButton("Compile Selected");
+        compileButton.addActionListener(e -> compileSelected());
+        compilersPanel.add(compileButton, BorderLayout.SOUTH);
+
+        JBSplitter splitter = new JBSplitter(false, 0.2f);
+        splitter.setFirstComponent(compilersPanel);
+        splitter.setSecondComponent(resultsPanel);
+        splitter.setPreferredSize(new Dimension(1200, 700));
+        return splitter;
+    }
+
+    @Override
+    @NotNull
+    protected Action[] createActions() {
+        return new Action[]{getCancelAction()};
+    }
+
+    @Override
+    protected void dispose() {
+        fanOut.cancel();
+        super.dispose();
+    }
+
+    private void compileSelected() {
+        List<CompilerMatch> selected = compilerMatches.stream().filter(compilersList::isItemSelected).collect(Collectors.toList());
+        resultsPanel.removeAll();
+        resultViews.clear();
+        selected.forEach(match -> {
+            JPanel panel = new JPanel(new BorderLayout(GAP, GAP));
+            JLabel label = new JLabel(getMatchText(match) + ": compiling...");
+            panel.add(label, BorderLayout.NORTH);
+            EditorTextField editor = createEditor();
+            panel.add(editor, BorderLayout.CENTER);
+            resultsPanel.add(panel);
+            resultViews.put(match.getRemoteCompilerInfo().getId(), new ResultView(label, editor));
+        });
+        resultsPanel.revalidate();
+        resultsPanel.repaint();
+        fanOut.compile(preprocessedSource, selected);
+    }
+
+    @NotNull
+    private EditorTextField createEditor() {
+        EditorTextField editor = new EditorTextField(EditorFactory.getInstance().createDocument(""), project, AsmFileType.INSTANCE, true, false) {
+            @Override
+            protected EditorEx createEditor() {
+                EditorEx ed = super.createEditor();
+                ed.setHorizontalScrollbarVisible(true);
+                ed.setVerticalScrollbarVisible(true);
+                ed.setViewer(true);
+                return ed;
+            }
+        };
+        editor.setFont(new Font("monospaced", editor.getFont().getStyle(), editor.getFont().getSize()));
+        return editor;
+    }
+
+    private void showResult(@NotNull RemoteCompilerFanOut.Result result) {
+        ResultView view = resultViews.get(result.getCompilerMatch().getRemoteCompilerInfo().getId());
+        if (view == null) {
+            return;
+        }
+        String latency = result.getLatencyMillis() + " ms" + (result.isCached() ? ", cached" : "");
+        CompiledText.CompiledResult compiledResult = result.getCompiledResult();
+        if (compiledResult == null) {
+            view.label.setText(getMatchText(result.getCompilerMatch()) + ": failed (" + latency + ")");
+            view.editor.setText(Objects.requireNonNull(result.getError()));
+        } else if (compiledResult.code != 0) {
+            view.label.setText(getMatchText(result.getCompilerMatch()) + ": error " + compiledResult.code + " (" + latency + ")");
+            view.editor.setText(joinChunks(compiledResult.stderr));
+        } else {
+            view.label.setText(getMatchText(result.getCompilerMatch()) + ": " + latency);
+            view.editor.setText(joinChunks(compiledResult.asm));
+        }
+    }
+
+    @NotNull
+    private static String joinChunks(@NotNull List<CompiledText.CompiledChunk> chunks) {
+        return chunks.stream().map(c -> c.text).filter(Objects::nonNull).collect(Collectors.joining("\n"));
+    }
+
+    @NotNull
+    private static String getMatchText(@NotNull CompilerMatch match) {
+        return match.getRemoteCompilerInfo().getName();
+    }
+}
@@ -0,0 +1,121 @@
+package com.compilerexplorer.gui;
+
+import com.compilerexplorer.common.Constants;
+import com.compilerexplorer.common.PipelineMetrics;
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class PipelineMetricsDialog extends DialogWrapper {
+    private static final int GAP = 2;
+    private static final int REFRESH_MILLIS = 1000;
+    @NotNull
+    private static final String[] COLUMNS = {"Stage", "Count", "Mean (ms)", "p50 (ms)", "p95 (ms)", "Max (ms)", "Total (ms)"};
+
+    @NotNull
+    private final Project project;
+    @NotNull
+    private final DefaultTableModel model;
+    @NotNull
+    private final JLabel payloadLabel;
+    @NotNull
+    private final Timer refreshTimer;
+
+    public PipelineMetricsDialog(@NotNull Project project_) {
+        super(project_, false);
+        project = project_;
+        model = new DefaultTableModel(COLUMNS, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        payloadLabel = new JLabel();
+        refreshTimer = new Timer(REFRESH_MILLIS, e -> refresh());
+        setModal(false);
+        setTitle(Constants.PROJECT_TITLE + ": Pipeline Metrics");
+        init();
+        refresh();
+        refreshTimer.start();
+    }
+
+    @Override
+    @Nullable
+    protected JComponent createCenterPanel() {
+        JPanel panel = new JPanel(new BorderLayout(GAP, GAP));
+        JBTable table = new JBTable(model);
+        JBScrollPane scrollPane = new JBScrollPane(table);
+        scrollPane.setPreferredSize(new Dimension(700, 260));
+        panel.add(scrollPane, BorderLayout.CENTER);
+        panel.add(payloadLabel, BorderLayout.NORTH);
+
+        JPanel buttonsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, GAP, GAP));
+        JButton resetButton = new JButton("Reset");
+        resetButton.addActionListener(e -> {
+            PipelineMetrics.getInstance(project).reset();
+            refresh();
+        });
+        buttonsPanel.add(resetButton);
+        JButton exportButton = new JButton("Export CSV...");
+        exportButton.addActionListener(e -> exportCsv());
+        buttonsPanel.add(exportButton);
+        panel.add(buttonsPanel, BorderLayout.SOUTH);
+        return panel;
+    }
+
+    @Override
+    @NotNull
+    protected Action[] createActions() {
+        return new Action[]{getCancelAction()};
+    }
+
+    @Override
+    protected void dispose() {
+        refreshTimer.stop();
+        super.dispose();
+    }
+
+    private void refresh() {
+        payloadLabel.setText(PipelineMetrics.getInstance(project).getPayloadSummary());
+        model.setRowCount(0);
+        for (PipelineMetrics.Snapshot snapshot : PipelineMetrics.getInstance(project).getSnapshots()) {
+            model.addRow(new Object[]{
+                    snapshot.stage.getTitle(),
+                    snapshot.count,
+                    PipelineMetrics.format(snapshot.getMeanMillis()),
+                    PipelineMetrics.format(snapshot.p50Millis),
+                    PipelineMetrics.format(snapshot.p95Millis),
+                    PipelineMetrics.format(snapshot.maxMillis),
+                    PipelineMetrics.format(snapshot.totalMillis)
+            });
+        }
+    }
+
+    private void exportCsv() {
+        VirtualFileWrapper fileWrapper = FileChooserFactory.getInstance()
+                .createSaveFileDialog(new FileSaverDescriptor("Export Pipeline Metrics", "Save pipeline metrics as CSV", "csv"), project)
+                .save((VirtualFile)null, "compiler-explorer-metrics.csv");
+        if (fileWrapper == null) {
+            return;
+        }
+        try {
+            Files.write(fileWrapper.getFile().toPath(), PipelineMetrics.getInstance(project).toCsv().getBytes(StandardCharsets.UTF_8));
+        } catch (Exception exception) {
+            Messages.showErrorDialog(project, "Cannot export metrics: " + exception.getMessage(), Constants.PROJECT_TITLE);
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.compilerexplorer.gui;
 
 import com.compilerexplorer.common.*;
+import com.compilerexplorer.compiler.PreprocessCache;
 import com.compilerexplorer.datamodel.*;
 import com.compilerexplorer.datamodel.state.*;
+import com.compilerexplorer.explorer.CompileResultCache;
+import com.compilerexplorer.explorer.EndpointRouter;
 import com.compilerexplorer.gui.listeners.AllEditorsListener;
 import com.compilerexplorer.gui.listeners.EditorChangeListener;
 import com.compilerexplorer.gui.tracker.CaretTracker;
@@ -79,6 +82,7 @@ public class ToolWindowGui {
     private CompiledText compiledText;
     @NotNull
     private final TimerScheduler timerScheduler = new TimerScheduler();
+    private long debounceStartNanos = 0;
     private boolean suppressUpdates = false;
     @NotNull
     private final Map<CompiledText.SourceLocation, List<Range>> locationsFromSourceMap = new HashMap<>();
@@ -251,6 +255,41 @@ public class ToolWindowGui {
             }
         });
 
+        actionGroup.add(new AnAction("Compare Compilers...") {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent event) {
+                if (compiledText != null) {
+                    new CompareCompilersDialog(project, compiledText.getPreprocessedSource()).show();
+                }
+            }
+            @Override
+            public void update(@NotNull AnActionEvent event) {
+                event.getPresentation().setEnabled(compiledText != null);
+            }
+        });
+
+        actionGroup.add(new AnAction("Show Cache Statistics") {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent event) {
+                String statistics = CompileResultCache.getInstance().getStatistics() + "\n" + PreprocessCache.getInstance().getStatistics();
+                Notifications.Bus.notify(Constants.NOTIFICATION_GROUP.createNotification(statistics.replace("\n", "<br/>"), NotificationType.INFORMATION), project);
+            }
+        });
+
+        actionGroup.add(new AnAction("Show Pipeline Metrics...") {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent event) {
+                new PipelineMetricsDialog(project).show();
+            }
+        });
+
+        actionGroup.add(new AnAction("Show Endpoint Status") {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent event) {
+                Notifications.Bus.notify(Constants.NOTIFICATION_GROUP.createNotification(EndpointRouter.getInstance(project).getStatistics(getState().getUrl()).replace("\n", "<br/>"), NotificationType.INFORMATION), project);
+            }
+        });
+
         toolWindow.setAdditionalGearActions(actionGroup);
 
         caretTracker = new CaretTracker(this::highlightLocations);
@@ -415,7 +454,14 @@ public class ToolWindowGui {
     }
 
     private void schedulePreprocess() {
-        timerScheduler.schedule(this::preprocess, getState().getDelayMillis());
+        if (debounceStartNanos == 0) {
+            debounceStartNanos = PipelineMetrics.getInstance(project).start();
+        }
+        timerScheduler.schedule(() -> {
+            PipelineMetrics.getInstance(project).stop(PipelineMetrics.Stage.DEBOUNCE, debounceStartNanos);
+            debounceStartNanos = 0;
+            preprocess();
+        }, getState().getDelayMillis());
     }
 
     private void preprocess() {
@@ -444,7 +490,7 @@ public class ToolWindowGui {
         matchesComboBox.setToolTipText(getMatchTooltip(compilerMatch));
         if (sourceRemoteMatchedConsumer != null && sourceRemoteMatched != null) {
             sourceRemoteMatchedConsumer.accept(new SourceRemoteMatched(sourceRemoteMatched.getSourceCompilerSettings(),
-                    new CompilerMatches(compilerMatch, sourceRemoteMatched.getRemoteCompilerMatches().getOtherMatches())));
+                    new CompilerMatches(compilerMatch, sourceRemoteMatched.getRemoteCompilerMatches().getOtherMatches(), sourceRemoteMatched.getRemoteCompilerMatches().getCatalogHash())));
         }
     }
 
@@ -457,7 +503,8 @@ public class ToolWindowGui {
                                     compiledText.getPreprocessedSource().getSourceRemoteMatched().getSourceCompilerSettings(),
                                     new CompilerMatches(
                                             compilerMatch,
-                                            compiledText.getPreprocessedSource().getSourceRemoteMatched().getRemoteCompilerMatches().getOtherMatches()
+                                            compiledText.getPreprocessedSource().getSourceRemoteMatched().getRemoteCompilerMatches().getOtherMatches(),
+                                            compiledText.getPreprocessedSource().getSourceRemoteMatched().getRemoteCompilerMatches().getCatalogHash()
                                     )
                             ),
                             compiledText.getPreprocessedSource().getPreprocessedText()
@@ -590,6 +637,8 @@ public class ToolWindowGui {
                 return;
             }
 
+            PipelineMetrics metrics = PipelineMetrics.getInstance(project);
+            long modelBuildStartNanos = metrics.start();
             SettingsState state = getState();
             boolean shortenTemplates = state.getShortenTemplates();
             List<Range> newHighlighterRanges = new ArrayList<>();
@@ -629,6 +678,9 @@ public class ToolWindowGui {
                 rangeAdder.accept(new CompiledText.SourceLocation(lastChunk), new Range(lastRangeBegin, currentOffset - 1));
             }
 
+            metrics.stop(PipelineMetrics.Stage.MODEL_BUILD, modelBuildStartNanos);
+            long renderStartNanos = metrics.start();
+
             int oldScrollPosition = (editor.getEditor() != null) ? findCurrentScrollPosition(editor.getEditor()) : 0;
             boolean oldShowAnnotations = showAnnotations;
 
@@ -654,6 +706,7 @@ public class ToolWindowGui {
                     showAnnotations(ed);
                 }
             }
+            metrics.stop(PipelineMetrics.Stage.RENDER, renderStartNanos);
             suppressUpdates = false;
         };
     }
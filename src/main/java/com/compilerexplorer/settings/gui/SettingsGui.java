@@ -28,6 +28,8 @@ public class SettingsGui {
     @NotNull
     private final JTextField urlField;
     @NotNull
+    private final JTextField replicaUrlsField;
+    @NotNull
     private final JCheckBox preprocessCheckbox;
     private boolean ignoreUpdates;
     @NotNull
@@ -37,6 +39,22 @@ public class SettingsGui {
     @NotNull
     private final JTextField ignoreSwitchesField;
     @NotNull
+    private final JTextField httpMaxConnectionsField;
+    @NotNull
+    private final JTextField httpMaxConnectionsPerRouteField;
+    @NotNull
+    private final JTextField compareParallelismField;
+    @NotNull
+    private final JTextField localPreprocessConcurrencyField;
+    @NotNull
+    private final JTextField remotePreprocessConcurrencyField;
+    @NotNull
+    private final JCheckBox speculativeCompilationCheckbox;
+    @NotNull
+    private final JTextField speculativeConcurrencyField;
+    @NotNull
+    private final JTextField speculativeBudgetField;
+    @NotNull
     private final TaskRunner taskRunner;
 
     public SettingsGui(@NotNull Project project_) {
@@ -106,6 +124,16 @@ public class SettingsGui {
 
         content.add(testResultPanel, VerticalLayout.TOP);
 
+        JPanel replicaUrlsPanel = new JPanel(new BorderLayout(GAP, GAP));
+        JLabel replicaUrlsLabel = new JLabel();
+        replicaUrlsLabel.setVisible(true);
+        replicaUrlsLabel.setText("Replica URLs (space separated): ");
+        replicaUrlsPanel.add(replicaUrlsLabel, BorderLayout.WEST);
+        replicaUrlsField = new JBTextField(20);
+        replicaUrlsPanel.add(replicaUrlsField, BorderLayout.CENTER);
+
+        content.add(replicaUrlsPanel, VerticalLayout.TOP);
+
         JPanel ignoreSwitchesPanel = new JPanel(new BorderLayout(GAP, GAP));
         JLabel ignoreSwitchesLabel = new JLabel();
         ignoreSwitchesLabel.setVisible(true);
@@ -143,6 +171,67 @@ public class SettingsGui {
 
         content.add(delayMillisPanel, VerticalLayout.TOP);
 
+        JPanel httpConnectionsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, GAP, GAP));
+        JLabel httpMaxConnectionsLabel = new JLabel();
+        httpMaxConnectionsLabel.setVisible(true);
+        httpMaxConnectionsLabel.setText("Max connections: ");
+        httpConnectionsPanel.add(httpMaxConnectionsLabel);
+        httpMaxConnectionsField = new JBTextField(4);
+        httpConnectionsPanel.add(httpMaxConnectionsField);
+        JLabel httpMaxConnectionsPerRouteLabel = new JLabel();
+        httpMaxConnectionsPerRouteLabel.setVisible(true);
+        httpMaxConnectionsPerRouteLabel.setText("Max connections per server: ");
+        httpConnectionsPanel.add(httpMaxConnectionsPerRouteLabel);
+        httpMaxConnectionsPerRouteField = new JBTextField(4);
+        httpConnectionsPanel.add(httpMaxConnectionsPerRouteField);
+
+        content.add(httpConnectionsPanel, VerticalLayout.TOP);
+
+        JPanel compareParallelismPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, GAP, GAP));
+        JLabel compareParallelismLabel = new JLabel();
+        compareParallelismLabel.setVisible(true);
+        compareParallelismLabel.setText("Parallel compiles when comparing compilers: ");
+        compareParallelismPanel.add(compareParallelismLabel);
+        compareParallelismField = new JBTextField(4);
+        compareParallelismPanel.add(compareParallelismField);
+
+        content.add(compareParallelismPanel, VerticalLayout.TOP);
+
+        JPanel preprocessConcurrencyPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, GAP, GAP));
+        JLabel localPreprocessConcurrencyLabel = new JLabel();
+        localPreprocessConcurrencyLabel.setVisible(true);
+        localPreprocessConcurrencyLabel.setText("Parallel preprocessors on local host: ");
+        preprocessConcurrencyPanel.add(localPreprocessConcurrencyLabel);
+        localPreprocessConcurrencyField = new JBTextField(4);
+        preprocessConcurrencyPanel.add(localPreprocessConcurrencyField);
+        JLabel remotePreprocessConcurrencyLabel = new JLabel();
+        remotePreprocessConcurrencyLabel.setVisible(true);
+        remotePreprocessConcurrencyLabel.setText("on remote host: ");
+        preprocessConcurrencyPanel.add(remotePreprocessConcurrencyLabel);
+        remotePreprocessConcurrencyField = new JBTextField(4);
+        preprocessConcurrencyPanel.add(remotePreprocessConcurrencyField);
+
+        content.add(preprocessConcurrencyPanel, VerticalLayout.TOP);
+
+        JPanel speculativePanel = new JPanel(new FlowLayout(FlowLayout.LEFT, GAP, GAP));
+        speculativeCompilationCheckbox = new JCheckBox();
+        speculativeCompilationCheckbox.setText("Precompile likely next sources in background");
+        speculativePanel.add(speculativeCompilationCheckbox);
+        JLabel speculativeConcurrencyLabel = new JLabel();
+        speculativeConcurrencyLabel.setVisible(true);
+        speculativeConcurrencyLabel.setText("Concurrency: ");
+        speculativePanel.add(speculativeConcurrencyLabel);
+        speculativeConcurrencyField = new JBTextField(4);
+        speculativePanel.add(speculativeConcurrencyField);
+        JLabel speculativeBudgetLabel = new JLabel();
+        speculativeBudgetLabel.setVisible(true);
+        speculativeBudgetLabel.setText("Max sources per update: ");
+        speculativePanel.add(speculativeBudgetLabel);
+        speculativeBudgetField = new JBTextField(4);
+        speculativePanel.add(speculativeBudgetField);
+
+        content.add(speculativePanel, VerticalLayout.TOP);
+
         ignoreUpdates = false;
     }
 
@@ -166,14 +255,24 @@ public class SettingsGui {
 
     private void populateGuiFromState() {
         urlField.setText(state.getUrl());
+        replicaUrlsField.setText(state.getReplicaUrls());
         preprocessCheckbox.setSelected(state.getPreprocessLocally());
         highlightColorChooserPanel.setSelectedColor(new Color(state.getHighlightColorRGB()));
         delayMillisField.setText(String.valueOf(state.getDelayMillis()));
         ignoreSwitchesField.setText(String.valueOf(state.getIgnoreSwitches()));
+        httpMaxConnectionsField.setText(String.valueOf(state.getHttpMaxConnections()));
+        httpMaxConnectionsPerRouteField.setText(String.valueOf(state.getHttpMaxConnectionsPerRoute()));
+        compareParallelismField.setText(String.valueOf(state.getCompareParallelism()));
+        localPreprocessConcurrencyField.setText(String.valueOf(state.getLocalPreprocessConcurrency()));
+        remotePreprocessConcurrencyField.setText(String.valueOf(state.getRemotePreprocessConcurrency()));
+        speculativeCompilationCheckbox.setSelected(state.getSpeculativeCompilation());
+        speculativeConcurrencyField.setText(String.valueOf(state.getSpeculativeConcurrency()));
+        speculativeBudgetField.setText(String.valueOf(state.getSpeculativeBudget()));
     }
 
     private void populateStateFromGui(@NotNull SettingsState state_) {
         state_.setUrl(urlField.getText());
+        state_.setReplicaUrls(replicaUrlsField.getText());
         state_.setPreprocessLocally(preprocessCheckbox.isSelected());
         Color highlightColor = highlightColorChooserPanel.getSelectedColor();
         if (highlightColor != null) {
@@ -185,6 +284,42 @@ public class SettingsGui {
             // empty
         }
         state_.setIgnoreSwitches(ignoreSwitchesField.getText());
+        try {
+            state_.setHttpMaxConnections(Integer.parseInt(httpMaxConnectionsField.getText()));
+        } catch (Exception exception) {
+            // empty
+        }
+        try {
+            state_.setHttpMaxConnectionsPerRoute(Integer.parseInt(httpMaxConnectionsPerRouteField.getText()));
+        } catch (Exception exception) {
+            // empty
+        }
+        try {
+            state_.setCompareParallelism(Integer.parseInt(compareParallelismField.getText()));
+        } catch (Exception exception) {
+            // empty
+        }
+        try {
+            state_.setLocalPreprocessConcurrency(Integer.parseInt(localPreprocessConcurrencyField.getText()));
+        } catch (Exception exception) {
+            // empty
+        }
+        try {
+            state_.setRemotePreprocessConcurrency(Integer.parseInt(remotePreprocessConcurrencyField.getText()));
+        } catch (Exception exception) {
+            // empty
+        }
+        state_.setSpeculativeCompilation(speculativeCompilationCheckbox.isSelected());
+        try {
+            state_.setSpeculativeConcurrency(Integer.parseInt(speculativeConcurrencyField.getText()));
+        } catch (Exception exception) {
+            // empty
+        }
+        try {
+            state_.setSpeculativeBudget(Integer.parseInt(speculativeBudgetField.getText()));
+        } catch (Exception exception) {
+            // empty
+        }
     }
 
     public void reset() {
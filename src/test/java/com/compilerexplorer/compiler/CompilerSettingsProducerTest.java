@@ -0,0 +1,34 @@
+package com.compilerexplorer.compiler;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CompilerSettingsProducerTest {
+    @Test
+    public void testMachineTargetMatchesVersionTarget() {
+        verifyTarget("x86_64", "x86_64-linux-gnu");
+        verifyTarget("x86_64", "x86_64-pc-linux-gnu");
+        verifyTarget("arm64", "arm64-apple-darwin22.6.0");
+        verifyTarget("armv7", "armv7-unknown-linux-gnueabihf");
+        verifyTarget("i386", "i386-pc-windows-msvc");
+        verifyTarget("i686", "i686-w64-mingw32");
+        verifyTarget("powerpc64le", "powerpc64le-linux-gnu");
+        verifyTarget("riscv64", "riscv64-unknown-linux-gnu");
+    }
+
+    @Test
+    public void testFullVersionAcceptsOnlyVersionNumbers() {
+        assertEquals("12.2.0", CompilerSettingsProducer.parseFullVersion("12.2.0\n"));
+        assertEquals("7", CompilerSettingsProducer.parseFullVersion("7\n"));
+        assertEquals("", CompilerSettingsProducer.parseFullVersion(""));
+        assertEquals("", CompilerSettingsProducer.parseFullVersion("gcc: error: unrecognized command-line option '-dumpfullversion'\n"));
+    }
+
+    private static void verifyTarget(@NotNull String expected, @NotNull String machine) {
+        String versionText = "Using built-in specs.\nCOLLECT_GCC=gcc\nTarget: " + machine + "\nConfigured with: ../configure --prefix=/usr\nThread model: posix\n";
+        assertEquals(expected, CompilerSettingsProducer.parseCompilerTarget(versionText));
+        assertEquals(expected, CompilerSettingsProducer.parseMachineTarget(machine + "\n"));
+    }
+}
@@ -0,0 +1,46 @@
+package com.compilerexplorer.compiler;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CompilerVersionTest {
+    @Test
+    public void testParse() {
+        CompilerVersion version = CompilerVersion.parse("12.2.0-1ubuntu1");
+        assertNotNull(version);
+        assertEquals(12, version.getMajor());
+        assertEquals(2, version.getMinor());
+        assertEquals(0, version.getPatch());
+        assertEquals("-1ubuntu1", version.getSuffix());
+
+        version = CompilerVersion.parse("7");
+        assertNotNull(version);
+        assertEquals(7, version.getMajor());
+        assertEquals(0, version.getMinor());
+        assertEquals("", version.getSuffix());
+
+        assertNull(CompilerVersion.parse("trunk"));
+        assertNull(CompilerVersion.parse(""));
+    }
+
+    @Test
+    public void testFind() {
+        CompilerVersion version = CompilerVersion.find("clang version 15.0.7 (https://github.com/llvm/llvm-project.git)");
+        assertNotNull(version);
+        assertEquals(15, version.getMajor());
+        assertEquals(7, version.getPatch());
+        assertNull(CompilerVersion.find("x86-64 gcc (trunk)"));
+    }
+
+    @Test
+    public void testDistance() {
+        CompilerVersion local = CompilerVersion.parse("9.3.0");
+        assertNotNull(local);
+        assertEquals(0, local.distanceTo(CompilerVersion.parse("9.3.0")));
+        assertTrue(local.distanceTo(CompilerVersion.parse("9.3.0a")) > 0);
+        assertTrue(local.distanceTo(CompilerVersion.parse("9.3.1")) < local.distanceTo(CompilerVersion.parse("9.3.4")));
+        assertTrue(local.distanceTo(CompilerVersion.parse("9.3.4")) < local.distanceTo(CompilerVersion.parse("9.2.0")));
+        assertTrue(local.distanceTo(CompilerVersion.parse("9.2.0")) < local.distanceTo(CompilerVersion.parse("10.3.0")));
+    }
+}
@@ -0,0 +1,75 @@
+package com.compilerexplorer.compiler;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class PreprocessCacheTest {
+    @Test
+    public void testResolvesRelativeMarkersAgainstWorkingDir() throws Exception {
+        Path workingDir = Files.createTempDirectory("compilerexplorer-cache");
+        Path header = workingDir.resolve("inc").resolve("r.h");
+        Files.createDirectories(header.getParent());
+        Files.write(header, "int x = 1;\n".getBytes(StandardCharsets.UTF_8));
+        try {
+            String sourcePath = workingDir.resolve("m.c").toString();
+            String text = "# 1 \"" + sourcePath + "\"\n# 1 \"inc/r.h\" 1\nint x = 1;\n# 2 \"" + sourcePath + "\" 2\nint f();\n";
+            String compilerPath = header.toString();
+
+            PreprocessCache cache = new PreprocessCache();
+            assertTrue(cache.isVerifiable(cache.getClosure(compilerPath, workingDir.toFile(), sourcePath, text)));
+            assertFalse(cache.isVerifiable(cache.getClosure(compilerPath, workingDir.resolve("inc").toFile(), sourcePath, text)));
+
+            cache.put("other", text, new HashSet<>(), cache.getClosure(compilerPath, workingDir.resolve("inc").toFile(), sourcePath, text));
+            assertNull(cache.get("other", new HashSet<>()));
+
+            cache.put("key", text, new HashSet<>(), cache.getClosure(compilerPath, workingDir.toFile(), sourcePath, text));
+            assertEquals(text, cache.get("key", new HashSet<>()));
+            Files.write(header, "int x = 22;\n".getBytes(StandardCharsets.UTF_8));
+            assertNull(cache.get("key", new HashSet<>()));
+        } finally {
+            Files.delete(header);
+            Files.delete(header.getParent());
+            Files.delete(workingDir);
+        }
+    }
+
+    @Test
+    public void testSkipsEntriesShadowedByIncludeDir() throws Exception {
+        Path root = Files.createTempDirectory("compilerexplorer-cache");
+        Path header = root.resolve("lib").resolve("config.h");
+        Path shadowingDir = root.resolve("a");
+        Path shadowingHeader = shadowingDir.resolve("config.h");
+        Path otherDir = root.resolve("b");
+        Files.createDirectories(header.getParent());
+        Files.createDirectories(shadowingDir);
+        Files.createDirectories(otherDir);
+        Files.write(header, "int x = 1;\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(shadowingHeader, "int x = 2;\n".getBytes(StandardCharsets.UTF_8));
+        try {
+            String text = "# 1 \"<prelude>\"\n# 1 \"" + header + "\" 1\nint x = 1;\n";
+            PreprocessCache cache = new PreprocessCache();
+            PreprocessCache.Closure closure = cache.getClosure(header.toString(), root.toFile(), "<prelude>", text);
+            assertTrue(cache.isShadowed(closure, shadowingDir.toFile()));
+            assertTrue(cache.isShadowed(closure, header.getParent().toFile()));
+            assertFalse(cache.isShadowed(closure, otherDir.toFile()));
+
+            cache.put("prelude", text, new HashSet<>(), closure);
+            assertEquals(text, cache.get("prelude", new HashSet<>(), otherDir.toFile()));
+            assertNull(cache.get("prelude", new HashSet<>(), shadowingDir.toFile()));
+            assertEquals(text, cache.get("prelude", new HashSet<>()));
+        } finally {
+            Files.delete(shadowingHeader);
+            Files.delete(header);
+            Files.delete(header.getParent());
+            Files.delete(shadowingDir);
+            Files.delete(otherDir);
+            Files.delete(root);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.compilerexplorer.compiler;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class PreprocessorOutputTest {
+    @Test
+    public void testStripsMacroDefinitions() {
+        Set<String> macroNames = new HashSet<>();
+        String text = "# 1 \"a.cpp\"\n#define A 1\nint a;\n#undef A\nint b;\n";
+        assertEquals("# 1 \"a.cpp\"\n\nint a;\n\nint b;\n", PreprocessorOutput.filter(text, null, macroNames));
+        assertEquals(1, macroNames.size());
+        assertTrue(macroNames.contains("A"));
+    }
+
+    @Test
+    public void testKeepsDirectivesInsideRawStrings() {
+        Set<String> macroNames = new HashSet<>();
+        String text = "# 1 \"a.cpp\"\nconst char *s = R\"(\n#define B 2\n#undef C\n)\";\n#define D 3\n";
+        assertEquals("# 1 \"a.cpp\"\nconst char *s = R\"(\n#define B 2\n#undef C\n)\";\n\n", PreprocessorOutput.filter(text, null, macroNames));
+        assertEquals(1, macroNames.size());
+        assertTrue(macroNames.contains("D"));
+    }
+
+    @Test
+    public void testKeepsDefinitionsWithoutMacroNames() {
+        PreprocessorOutput output = new PreprocessorOutput(null, null);
+        output.accept("# 1 \"<prelude>\"");
+        output.accept("#define A 1");
+        output.accept("int a;");
+        assertEquals("# 1 \"<prelude>\"\n#define A 1\nint a;\n", output.getText());
+    }
+}
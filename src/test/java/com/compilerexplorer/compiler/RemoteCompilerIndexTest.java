@@ -0,0 +1,213 @@
+package com.compilerexplorer.compiler;
+
+import com.compilerexplorer.datamodel.state.CompilerMatch;
+import com.compilerexplorer.datamodel.state.CompilerMatchKind;
+import com.compilerexplorer.datamodel.state.RemoteCompilerInfo;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class RemoteCompilerIndexTest {
+    private static final String[] LANGUAGES = {"c++", "c"};
+    private static final String[] FAMILIES = {"gcc", "clang", "icc"};
+    private static final String[] TARGETS = {"x86-64", "arm", "aarch64", "powerpc64le", "riscv64", "mips"};
+    private static final String[] LOCAL_TARGETS = {"x86_64", "arm", "aarch64", "powerpc64le", "riscv64", "sparc"};
+    private static final String[] LOCAL_VERSIONS = {"4.6.4", "9.3.0", "12.2.0", "12.3.1", "15.0.7", "7"};
+    private static final String BENCHMARK_PROPERTY = "compilerexplorer.benchmark";
+    private static final int BENCHMARK_ROUNDS = 5;
+    private static final int BENCHMARK_MARGIN = 2;
+
+    @Test
+    public void testExactAndMinorMatches() {
+        List<RemoteCompilerInfo> compilers = new ArrayList<>();
+        compilers.add(new RemoteCompilerInfo("g920", "x86-64 gcc 9.2", "c++", "g++ (GCC-Explorer-Build) 9.2.0"));
+        compilers.add(new RemoteCompilerInfo("g930", "x86-64 gcc 9.3", "c++", "g++ (GCC-Explorer-Build) 9.3.0"));
+        compilers.add(new RemoteCompilerInfo("g931", "x86-64 gcc 9.3", "c", "gcc (GCC-Explorer-Build) 9.3.0"));
+        compilers.add(new RemoteCompilerInfo("arm930", "arm gcc 9.3", "c++", "arm-unknown-linux-gnueabi-g++ (GCC) 9.3.0"));
+        RemoteCompilerIndex index = new RemoteCompilerIndex(compilers);
+
+        List<CompilerMatch> matches = index.findMatches("C++", "gcc", "9.2", "9.2.0", "x86_64");
+        assertEquals(3, matches.size());
+        assertEquals(CompilerMatchKind.EXACT_MATCH, matches.get(0).getCompilerMatchKind());
+        assertEquals(CompilerMatchKind.MINOR_MISMATCH, matches.get(1).getCompilerMatchKind());
+        assertEquals(CompilerMatchKind.NO_MATCH, matches.get(2).getCompilerMatchKind());
+
+        assertTrue(index.findMatches("fortran", "gcc", "9.2", "9.2.0", "x86_64").isEmpty());
+    }
+
+    @Test
+    public void testClosestVersionRanksFirst() {
+        List<RemoteCompilerInfo> compilers = new ArrayList<>();
+        compilers.add(new RemoteCompilerInfo("c1500", "x86-64 clang 15.0.0", "c++", "clang version 15.0.0"));
+        compilers.add(new RemoteCompilerInfo("c1506", "x86-64 clang 15.0.6", "c++", "clang version 15.0.6"));
+        compilers.add(new RemoteCompilerInfo("c1400", "x86-64 clang 14.0.0", "c++", "clang version 14.0.0"));
+        compilers.add(new RemoteCompilerInfo("c1600", "x86-64 clang 16.0.0", "c++", "clang version 16.0.0"));
+        RemoteCompilerIndex index = new RemoteCompilerIndex(compilers);
+
+        List<CompilerMatch> matches = index.findMatches("c++", "clang", "15.0.7", "15.0.7", "x86_64");
+        assertEquals("c1506", matches.get(0).getRemoteCompilerInfo().getId());
+        assertEquals(CompilerMatchKind.MINOR_MISMATCH, matches.get(0).getCompilerMatchKind());
+        assertEquals("c1500", matches.get(1).getRemoteCompilerInfo().getId());
+        assertEquals(CompilerMatchKind.NO_MATCH, matches.get(2).getCompilerMatchKind());
+        assertEquals(CompilerMatchKind.NO_MATCH, matches.get(3).getCompilerMatchKind());
+    }
+
+    @Test
+    public void testCatalogHashTracksLanguageCandidates() {
+        List<RemoteCompilerInfo> compilers = new ArrayList<>();
+        compilers.add(new RemoteCompilerInfo("g920", "x86-64 gcc 9.2", "c++", "g++ (GCC-Explorer-Build) 9.2.0"));
+        compilers.add(new RemoteCompilerInfo("g921", "x86-64 gcc 9.2", "c", "gcc (GCC-Explorer-Build) 9.2.0"));
+        String hash = new RemoteCompilerIndex(compilers).getCatalogHash("c++", "gcc", "9.2", "9.2.0", "x86_64");
+        assertEquals(hash, new RemoteCompilerIndex(new ArrayList<>(compilers)).getCatalogHash("c++", "gcc", "9.2", "9.2.0", "x86_64"));
+        assertFalse(hash.equals(new RemoteCompilerIndex(compilers).getCatalogHash("c++", "gcc", "9.3", "9.3.0", "x86_64")));
+
+        List<RemoteCompilerInfo> otherLanguageChanged = new ArrayList<>(compilers);
+        otherLanguageChanged.add(new RemoteCompilerInfo("g931", "x86-64 gcc 9.3", "c", "gcc (GCC-Explorer-Build) 9.3.0"));
+        assertEquals(hash, new RemoteCompilerIndex(otherLanguageChanged).getCatalogHash("c++", "gcc", "9.2", "9.2.0", "x86_64"));
+
+        List<RemoteCompilerInfo> sameLanguageChanged = new ArrayList<>(compilers);
+        sameLanguageChanged.add(new RemoteCompilerInfo("g930", "x86-64 gcc 9.3", "c++", "g++ (GCC-Explorer-Build) 9.3.0"));
+        assertFalse(hash.equals(new RemoteCompilerIndex(sameLanguageChanged).getCatalogHash("c++", "gcc", "9.2", "9.2.0", "x86_64")));
+    }
+
+    @Test
+    public void testMatchesRegexScanOnLargeCatalog() {
+        List<RemoteCompilerInfo> compilers = createCatalog();
+        assertTrue(compilers.size() > 5000);
+        RemoteCompilerIndex index = new RemoteCompilerIndex(compilers);
+        for (String language : LANGUAGES) {
+            for (String family : FAMILIES) {
+                for (String target : LOCAL_TARGETS) {
+                    for (String versionFull : LOCAL_VERSIONS) {
+                        String version = getLocalVersion(family, versionFull);
+                        List<CompilerMatch> expected = scan(compilers, family, version, versionFull, target, language);
+                        List<CompilerMatch> actual = index.findMatches(language, family, version, versionFull, target);
+                        assertEquals(expected.size(), actual.size());
+                        assertEquals(new HashSet<>(expected), new HashSet<>(actual));
+                        for (int i = 1; i < actual.size(); ++i) {
+                            assertTrue(actual.get(i - 1).getCompilerMatchKind().compareTo(actual.get(i).getCompilerMatchKind()) <= 0);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void benchmarkIndexAgainstRegexScan() {
+        Assume.assumeTrue(Boolean.getBoolean(BENCHMARK_PROPERTY));
+        List<RemoteCompilerInfo> compilers = createCatalog();
+        long scanNanos = Long.MAX_VALUE;
+        long indexNanos = Long.MAX_VALUE;
+        for (int round = 0; round < BENCHMARK_ROUNDS; ++round) {
+            long scanStart = System.nanoTime();
+            int scanned = runQueries(null, compilers);
+            scanNanos = Math.min(scanNanos, System.nanoTime() - scanStart);
+            long indexStart = System.nanoTime();
+            int indexed = runQueries(new RemoteCompilerIndex(compilers), compilers);
+            indexNanos = Math.min(indexNanos, System.nanoTime() - indexStart);
+            assertEquals(scanned, indexed);
+        }
+        String report = "Catalog of " + compilers.size() + " compilers: regex scan " + TimeUnit.NANOSECONDS.toMillis(scanNanos) + " ms, index " + TimeUnit.NANOSECONDS.toMillis(indexNanos) + " ms";
+        assertTrue(report, indexNanos <= scanNanos * BENCHMARK_MARGIN);
+    }
+
+    private static int runQueries(@Nullable RemoteCompilerIndex index, @NotNull List<RemoteCompilerInfo> compilers) {
+        int matched = 0;
+        for (String language : LANGUAGES) {
+            for (String family : FAMILIES) {
+                for (String target : LOCAL_TARGETS) {
+                    for (String versionFull : LOCAL_VERSIONS) {
+                        String version = getLocalVersion(family, versionFull);
+                        List<CompilerMatch> matches = index != null
+                                ? index.findMatches(language, family, version, versionFull, target)
+                                : scan(compilers, family, version, versionFull, target, language);
+                        matched += (int)matches.stream().filter(m -> m.getCompilerMatchKind() != CompilerMatchKind.NO_MATCH).count();
+                    }
+                }
+            }
+        }
+        return matched;
+    }
+
+    @NotNull
+    private static String getLocalVersion(@NotNull String family, @NotNull String versionFull) {
+        return family.equals("gcc") ? versionFull.replaceAll("^([5-9]|[1-9][0-9]+)(\\.[0-9]+)\\.[0-9]+$", "$1$2") : versionFull;
+    }
+
+    @NotNull
+    private static List<RemoteCompilerInfo> createCatalog() {
+        List<RemoteCompilerInfo> compilers = new ArrayList<>();
+        for (String language : LANGUAGES) {
+            for (String family : FAMILIES) {
+                for (String target : TARGETS) {
+                    for (int major = 3; major <= 15; ++major) {
+                        for (int minor = 0; minor <= 5; ++minor) {
+                            for (int patch = 0; patch <= 3; ++patch) {
+                                String versionName = major >= 5 && family.equals("gcc") ? major + "." + minor : major + "." + minor + "." + patch;
+                                String versionFull = major + "." + minor + "." + patch;
+                                String id = language + family + target + major + minor + patch;
+                                String name = target + " " + family + " " + versionName;
+                                String versionText = family.equals("clang") ? "clang version " + versionFull + " (" + target + ")" : target + "-" + family + " (Explorer Build) " + versionFull;
+                                compilers.add(new RemoteCompilerInfo(id, name, language, versionText));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return compilers;
+    }
+
+    @NotNull
+    private static List<CompilerMatch> scan(@NotNull List<RemoteCompilerInfo> compilers,
+                                            @NotNull String localName,
+                                            @NotNull String localVersion,
+                                            @NotNull String localVersionFull,
+                                            @NotNull String localTarget,
+                                            @NotNull String language) {
+        return compilers.stream()
+                .filter(s -> s.getLanguage().toLowerCase().equals(language.toLowerCase()))
+                .map(s -> scanMatch(s, localName, localVersion, localVersionFull, localTarget))
+                .collect(Collectors.toList());
+    }
+
+    @NotNull
+    private static CompilerMatch scanMatch(@NotNull RemoteCompilerInfo remoteCompilerInfo,
+                                           @NotNull String localName,
+                                           @NotNull String localVersion,
+                                           @NotNull String localVersionFull,
+                                           @NotNull String localTarget) {
+        String remoteVersion = remoteCompilerInfo.getVersion();
+        String remoteName = remoteCompilerInfo.getName();
+        boolean targetMatches =
+                remoteVersion.replaceAll("-", "_").contains(localTarget.replaceAll("-", "_")) ||
+                remoteName.replaceAll("-", "_").contains(localTarget.replaceAll("-", "_"));
+        boolean nameMatches =
+                remoteVersion.toLowerCase().contains(localName.toLowerCase()) ||
+                remoteName.toLowerCase().contains(localName.toLowerCase());
+        if (targetMatches && nameMatches) {
+            if (regexMatches(remoteVersion, localVersionFull, false) || regexMatches(remoteName, localVersion, false)) {
+                return new CompilerMatch(remoteCompilerInfo, CompilerMatchKind.EXACT_MATCH);
+            } else if (regexMatches(remoteVersion, localVersionFull, true) || regexMatches(remoteName, localVersion, true)) {
+                return new CompilerMatch(remoteCompilerInfo, CompilerMatchKind.MINOR_MISMATCH);
+            }
+        }
+        return new CompilerMatch(remoteCompilerInfo, CompilerMatchKind.NO_MATCH);
+    }
+
+    private static boolean regexMatches(@NotNull String remoteName, @NotNull String localVersion, boolean tryMinorMismatch) {
+        String stripped = localVersion.replaceAll("^(.*)\\.[^.]*$", "$1");
+        String localVersionRegex = "^.* " + (tryMinorMismatch ? (stripped.replaceAll("\\.", "\\\\.") + "\\.[0-9]+") : localVersion.replaceAll("\\.", "\\\\.")) + "( .*)?$";
+        return remoteName.matches(localVersionRegex);
+    }
+}
@@ -0,0 +1,26 @@
+package com.compilerexplorer.compiler;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RemotePreprocessorTest {
+    @Test
+    public void testBatchOutputFailsOnlyAffectedEntries() {
+        RemotePreprocessor.BatchOutput output = new RemotePreprocessor.BatchOutput("delimiter", 16);
+        for (String line : Arrays.asList("a", "b", "", "delimiter 0", "this line is too long", "", "delimiter 0", "c", "delimiter 1", "", "delimiter 0", "d", "delimiter 0", "e")) {
+            output.accept(line);
+        }
+        List<String> outputs = output.getOutputs(6);
+        assertEquals(6, outputs.size());
+        assertEquals("a\nb\n", outputs.get(0));
+        assertNull(outputs.get(1));
+        assertNull(outputs.get(2));
+        assertNull(outputs.get(3));
+        assertEquals("d", outputs.get(4));
+        assertNull(outputs.get(5));
+    }
+}
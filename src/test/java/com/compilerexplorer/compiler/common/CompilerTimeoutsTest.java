@@ -0,0 +1,26 @@
+package com.compilerexplorer.compiler.common;
+
+import com.compilerexplorer.common.Constants;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CompilerTimeoutsTest {
+    @Test
+    public void testKindsKeepSeparateHistory() {
+        String compilerPath = "/opt/timeouts-test/g++";
+        for (int i = 0; i < 10; ++i) {
+            CompilerTimeouts.record(compilerPath, CompilerTimeouts.Kind.PROBE, 1, 2);
+        }
+        assertEquals(Constants.COMPILER_MIN_TIMEOUT_MILLIS, CompilerTimeouts.getTimeoutMillis(compilerPath, CompilerTimeouts.Kind.PROBE, 1));
+        assertEquals(Constants.COMPILER_TIMEOUT_MILLIS, CompilerTimeouts.getTimeoutMillis(compilerPath, CompilerTimeouts.Kind.PREPROCESS, 1));
+    }
+
+    @Test
+    public void testBatchTimeoutScalesWithRuns() {
+        String compilerPath = "/opt/timeouts-test/clang++";
+        assertEquals(3 * Constants.COMPILER_TIMEOUT_MILLIS, CompilerTimeouts.getTimeoutMillis(compilerPath, CompilerTimeouts.Kind.BATCH, 3));
+        CompilerTimeouts.record(compilerPath, CompilerTimeouts.Kind.BATCH, 4, 40000);
+        assertEquals(2 * 40000, CompilerTimeouts.getTimeoutMillis(compilerPath, CompilerTimeouts.Kind.BATCH, 2));
+    }
+}
@@ -0,0 +1,47 @@
+package com.compilerexplorer.compiler.common;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OutputCaptureTest {
+    @Test
+    public void testStreamsLinesAcrossBuffers() {
+        List<String> lines = new ArrayList<>();
+        OutputCapture capture = new OutputCapture(100, lines::add);
+        append(capture, "int a;\nin");
+        append(capture, "t b;\n\nint c;");
+        capture.close();
+        assertEquals(4, lines.size());
+        assertEquals("int a;", lines.get(0));
+        assertEquals("int b;", lines.get(1));
+        assertEquals("", lines.get(2));
+        assertEquals("int c;", lines.get(3));
+        assertEquals("", capture.getText());
+        assertFalse(capture.isTruncated());
+    }
+
+    @Test
+    public void testTruncatesAtLimit() {
+        List<String> lines = new ArrayList<>();
+        OutputCapture capture = new OutputCapture(8, lines::add);
+        append(capture, "int a;\nint b;\n");
+        capture.close();
+        assertTrue(capture.isTruncated());
+        assertEquals(1, lines.size());
+        assertEquals(8, capture.getLength());
+
+        OutputCapture memoryCapture = new OutputCapture(8, null);
+        append(memoryCapture, "int a;\nint b;\n");
+        assertTrue(memoryCapture.isTruncated());
+        assertEquals("int a;\ni", memoryCapture.getText());
+    }
+
+    private static void append(@NotNull OutputCapture capture, @NotNull String text) {
+        capture.append(text.toCharArray(), 0, text.length());
+    }
+}
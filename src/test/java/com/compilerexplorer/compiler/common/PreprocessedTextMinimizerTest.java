@@ -0,0 +1,27 @@
+package com.compilerexplorer.compiler.common;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PreprocessedTextMinimizerTest {
+    @Test
+    public void testKeepsShortBlankRunsAndStripsTrailingWhitespace() {
+        String text = "# 1 \"a.cpp\"\nint a;   \n\n\nint b;\n";
+        assertEquals("# 1 \"a.cpp\"\nint a;\n\n\nint b;\n", PreprocessedTextMinimizer.minimize(text));
+    }
+
+    @Test
+    public void testKeepsMultiLineRawStringVerbatim() {
+        String raw = "const char *s = R\"x(first  \n\n# 12 \"x\"\n   \n)\" still)x\";\n";
+        String text = "# 1 \"a.cpp\"\n" + raw + "int c;  \n";
+        assertEquals("# 1 \"a.cpp\"\n" + raw + "int c;\n", PreprocessedTextMinimizer.minimize(text));
+    }
+
+    @Test
+    public void testKeepsContinuedStringVerbatim() {
+        String continued = "const char *s = \"first \\\n\n  second\";\n";
+        String text = "# 1 \"a.cpp\"\n" + continued + "int c = 1'000; const char *t = u8R\"(\n\n)\";\n";
+        assertEquals(text, PreprocessedTextMinimizer.minimize(text));
+    }
+}